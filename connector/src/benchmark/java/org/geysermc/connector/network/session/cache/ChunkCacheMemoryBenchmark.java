@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session.cache;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
+import com.github.steveice10.mc.protocol.data.game.chunk.Column;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.IntTag;
+import com.github.steveice10.opennbt.tag.builtin.StringTag;
+import com.nukkitx.nbt.NBTOutputStream;
+import com.nukkitx.nbt.NbtMap;
+import com.nukkitx.nbt.NbtUtils;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.geysermc.connector.utils.MathUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the heap retained by the chunk cache with retaining the received columns, which is what the cache used to
+ * do. Every session receives the same terrain, as players on one server mostly see the same chunks.
+ *
+ * Run with {@code mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=org.geysermc.connector.network.session.cache.ChunkCacheMemoryBenchmark}
+ */
+public class ChunkCacheMemoryBenchmark {
+    private static final int SESSIONS = 20;
+    /**
+     * A view distance of 10 chunks
+     */
+    private static final int RADIUS = 10;
+    private static final int SIGNS_PER_COLUMN = 4;
+
+    public static void main(String[] args) throws IOException {
+        long baseline = usedHeap();
+        List<Long2ObjectMap<Column>> columnSessions = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            Long2ObjectMap<Column> columns = new Long2ObjectOpenHashMap<>();
+            forEachColumn((x, z) -> columns.put(MathUtils.chunkPositionToLong(x, z), createColumn(x, z)));
+            columnSessions.add(columns);
+        }
+        long columnBytes = usedHeap() - baseline;
+        System.out.println("Retained columns: " + columnBytes / SESSIONS / 1024 + " KiB per session");
+        columnSessions.clear();
+
+        for (boolean share : new boolean[]{false, true}) {
+            baseline = usedHeap();
+            List<ChunkCache> cacheSessions = new ArrayList<>();
+            long estimate = 0;
+            for (int i = 0; i < SESSIONS; i++) {
+                ChunkCache cache = new ChunkCache(true, share);
+                forEachColumn((x, z) -> {
+                    Column column = createColumn(x, z);
+                    cache.addToCache(column);
+                    // What storing the translation of the column does
+                    cache.storeTranslatedBlockEntities(x, z, column.getTileEntities(), translateBlockEntities(column), new CompoundTag[0]);
+                });
+                estimate += cache.getMemoryUsage();
+                cacheSessions.add(cache);
+            }
+            long cacheBytes = usedHeap() - baseline;
+            System.out.println("Chunk cache" + (share ? " with shared sections" : "") + ": " + cacheBytes / SESSIONS / 1024
+                    + " KiB per session (estimated " + estimate / SESSIONS / 1024 + " KiB), "
+                    + String.format("%.1f", (double) columnBytes / cacheBytes) + "x less than retained columns");
+            cacheSessions.clear();
+        }
+    }
+
+    private static void forEachColumn(ColumnConsumer consumer) throws IOException {
+        for (int x = -RADIUS; x <= RADIUS; x++) {
+            for (int z = -RADIUS; z <= RADIUS; z++) {
+                consumer.accept(x, z);
+            }
+        }
+    }
+
+    /**
+     * A column with varied blocks at the bottom, stone in the middle, a surface section and air above it. The blocks
+     * only depend on the column position, so every session receives the same terrain.
+     */
+    private static Column createColumn(int chunkX, int chunkZ) {
+        Random random = new Random(MathUtils.chunkPositionToLong(chunkX, chunkZ));
+        Chunk[] sections = new Chunk[16];
+        for (int sectionY = 0; sectionY < 5; sectionY++) {
+            Chunk section = new Chunk();
+            for (int index = 0; index < 4096; index++) {
+                // Stone, with ores, gravel and caves mixed in
+                int state = random.nextInt(10) == 0 ? random.nextInt(12) : 1;
+                section.set(index & 0xF, index >> 8, (index >> 4) & 0xF, state);
+            }
+            sections[sectionY] = section;
+        }
+        Chunk surface = new Chunk();
+        for (int index = 0; index < 4096; index++) {
+            int y = index >> 8;
+            int state = y < 4 ? 10 : y == 4 ? 9 : (y == 5 && random.nextInt(8) == 0 ? 1341 + random.nextInt(4) : 0);
+            surface.set(index & 0xF, y, (index >> 4) & 0xF, state);
+        }
+        sections[5] = surface;
+
+        CompoundTag[] blockEntities = new CompoundTag[SIGNS_PER_COLUMN];
+        for (int i = 0; i < blockEntities.length; i++) {
+            CompoundTag sign = new CompoundTag("");
+            sign.put(new StringTag("id", "minecraft:sign"));
+            sign.put(new IntTag("x", chunkX * 16 + i));
+            sign.put(new IntTag("y", 85));
+            sign.put(new IntTag("z", chunkZ * 16));
+            for (int line = 1; line <= 4; line++) {
+                sign.put(new StringTag("Text" + line, "{\"text\":\"Line " + line + " of sign " + i + "\"}"));
+            }
+            sign.put(new StringTag("Color", "black"));
+            blockEntities[i] = sign;
+        }
+        return new Column(chunkX, chunkZ, sections, blockEntities, new CompoundTag(""), new int[1024]);
+    }
+
+    /**
+     * @return the encoded Bedrock signs of each section, as the chunk translation stores them
+     */
+    private static byte[][] translateBlockEntities(Column column) throws IOException {
+        byte[][] sectionBlockEntities = new byte[column.getChunks().length][];
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        NBTOutputStream nbtStream = NbtUtils.createNetworkWriter(output);
+        for (CompoundTag tag : column.getTileEntities()) {
+            StringBuilder text = new StringBuilder();
+            for (int line = 1; line <= 4; line++) {
+                text.append("Line ").append(line).append(line < 4 ? "\n" : "");
+            }
+            nbtStream.writeTag(NbtMap.builder()
+                    .putString("id", "Sign")
+                    .putInt("x", (int) tag.get("x").getValue())
+                    .putInt("y", (int) tag.get("y").getValue())
+                    .putInt("z", (int) tag.get("z").getValue())
+                    .putByte("isMovable", (byte) 1)
+                    .putString("Text", text.toString())
+                    .build());
+        }
+        sectionBlockEntities[5] = output.toByteArray();
+        return sectionBlockEntities;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @FunctionalInterface
+    private interface ColumnConsumer {
+        void accept(int chunkX, int chunkZ) throws IOException;
+    }
+}
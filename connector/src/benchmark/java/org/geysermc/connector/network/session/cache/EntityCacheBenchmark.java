@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session.cache;
+
+import com.nukkitx.math.vector.Vector3f;
+import org.geysermc.connector.entity.Entity;
+import org.geysermc.connector.entity.ItemEntity;
+import org.geysermc.connector.entity.living.animal.PigEntity;
+import org.geysermc.connector.entity.living.animal.StriderEntity;
+import org.geysermc.connector.entity.type.EntityType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spawns, moves and destroys 5000 entities in the entity cache, the way the entity translators do: every movement
+ * looks the entity up by its Java ID, and entities riding a strider look up all striders. No packets are sent to a
+ * client, so this only measures the cache itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityCacheBenchmark {
+    private static final int ENTITIES = 5000;
+    private static final int MOVES_PER_ENTITY = 4;
+
+    private EntityCache entityCache;
+    private Entity[] entities;
+
+    @Setup
+    public void setUp() {
+        // No culling or merging, so the cache never needs the session
+        entityCache = new EntityCache(null, 0, 0, false);
+        entities = new Entity[ENTITIES];
+        for (int i = 0; i < ENTITIES; i++) {
+            Vector3f position = Vector3f.from(i % 100, 64, i / 100);
+            switch (i % 10) {
+                case 0:
+                    entities[i] = new StriderEntity(i, i + 2, EntityType.STRIDER, position, Vector3f.ZERO, Vector3f.ZERO);
+                    break;
+                case 1:
+                case 2:
+                case 3:
+                    entities[i] = new ItemEntity(i, i + 2, EntityType.ITEM, position, Vector3f.ZERO, Vector3f.ZERO);
+                    break;
+                default:
+                    entities[i] = new PigEntity(i, i + 2, EntityType.PIG, position, Vector3f.ZERO, Vector3f.ZERO);
+            }
+        }
+    }
+
+    @Benchmark
+    public void churn(Blackhole blackhole) {
+        for (Entity entity : entities) {
+            entityCache.cacheEntity(entity);
+            entity.setValid(true);
+        }
+
+        for (int move = 0; move < MOVES_PER_ENTITY; move++) {
+            for (int javaId = 0; javaId < ENTITIES; javaId++) {
+                Entity entity = entityCache.getEntityByJavaId(javaId);
+                entity.setPosition(entity.getPosition().add(0, 0, (move & 1) == 0 ? 0.5f : -0.5f));
+            }
+        }
+
+        for (int i = 0; i < ENTITIES; i += 100) {
+            for (StriderEntity strider : entityCache.getEntitiesByType(StriderEntity.class)) {
+                if (strider.getPassengers().contains(i)) {
+                    blackhole.consume(strider);
+                    break;
+                }
+            }
+        }
+
+        for (Entity entity : entities) {
+            entityCache.removeEntity(entity, true);
+        }
+        blackhole.consume(entityCache.getEntities().size());
+    }
+}
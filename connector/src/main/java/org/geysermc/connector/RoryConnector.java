@@ -28,9 +28,12 @@ package org.geysermc.connector;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.nukkitx.network.raknet.RakNetConstants;
 import com.nukkitx.network.util.EventLoops;
 import com.nukkitx.protocol.bedrock.BedrockServer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
 import lombok.Getter;
 import lombok.Setter;
 import org.geysermc.common.PlatformType;
@@ -41,6 +44,7 @@ import org.geysermc.connector.configuration.RoryConfiguration;
 import org.geysermc.connector.metrics.Metrics;
 import org.geysermc.connector.network.ConnectorServerEventHandler;
 import org.geysermc.connector.network.session.RorySession;
+import org.geysermc.connector.network.session.SessionTicker;
 import org.geysermc.connector.network.translators.BiomeTranslator;
 import org.geysermc.connector.network.translators.EntityIdentifierRegistry;
 import org.geysermc.connector.network.translators.PacketTranslatorRegistry;
@@ -50,12 +54,15 @@ import org.geysermc.connector.network.translators.item.ItemRegistry;
 import org.geysermc.connector.network.translators.item.ItemTranslator;
 import org.geysermc.connector.network.translators.item.PotionMixRegistry;
 import org.geysermc.connector.network.translators.item.RecipeRegistry;
+import org.geysermc.connector.network.translators.item.TranslatedItemCache;
+import org.geysermc.connector.network.translators.item.TranslatedRecipeCache;
 import org.geysermc.connector.network.translators.sound.SoundHandlerRegistry;
 import org.geysermc.connector.network.translators.sound.SoundRegistry;
 import org.geysermc.connector.network.translators.world.WorldManager;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
 import org.geysermc.connector.network.translators.world.block.entity.BlockEntityTranslator;
 import org.geysermc.connector.network.translators.world.block.entity.SkullBlockEntityTranslator;
+import org.geysermc.connector.network.translators.world.chunk.TranslatedSectionCache;
 import org.geysermc.connector.utils.*;
 import org.jetbrains.annotations.Contract;
 
@@ -66,10 +73,7 @@ import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.text.DecimalFormat;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 
 @Getter
 public class RoryConnector {
@@ -103,6 +107,26 @@ public class RoryConnector {
     private boolean shuttingDown = false;
 
     private final ScheduledExecutorService generalThreadPool;
+    private final ExecutorService chunkThreadPool;
+    private final ThreadPoolExecutor loginThreadPool;
+    /**
+     * Each session is pinned to one of these event loops, which runs all of its translation
+     */
+    private final EventLoopGroup sessionEventLoopGroup;
+    private final SessionTicker sessionTicker;
+
+    /**
+     * Shared between all sessions; null if disabled in the config
+     */
+    private final TranslatedSectionCache translatedSectionCache;
+    /**
+     * Shared between all sessions; null if disabled in the config
+     */
+    private final TranslatedItemCache translatedItemCache;
+    /**
+     * Shared between all sessions
+     */
+    private final TranslatedRecipeCache translatedRecipeCache = new TranslatedRecipeCache();
 
     private BedrockServer bedrockServer;
     private final PlatformType platformType;
@@ -129,6 +153,15 @@ public class RoryConnector {
         logger.info("******************************************");
 
         this.generalThreadPool = Executors.newScheduledThreadPool(config.getGeneralThreadPool());
+        this.chunkThreadPool = Executors.newFixedThreadPool(config.getChunkThreadPool(),
+                new ThreadFactoryBuilder().setNameFormat("Rory Chunk Thread #%d").setDaemon(true).build());
+        // Bounded, so a flood of logins is refused instead of piling up
+        this.loginThreadPool = new ThreadPoolExecutor(config.getLoginThreadPool(), config.getLoginThreadPool(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getLoginQueueSize()),
+                new ThreadFactoryBuilder().setNameFormat("Rory Login Thread #%d").setDaemon(true).build());
+        this.sessionEventLoopGroup = new DefaultEventLoopGroup(config.getSessionThreadPool(),
+                new ThreadFactoryBuilder().setNameFormat("Rory Session Thread #%d").setDaemon(true).build());
+        this.sessionTicker = new SessionTicker(sessionEventLoopGroup);
 
         logger.setDebug(config.isDebugMode());
 
@@ -151,6 +184,18 @@ public class RoryConnector {
 
         ResourcePack.loadPacks();
 
+        if (config.getTranslatedChunkCacheSize() > 0) {
+            this.translatedSectionCache = new TranslatedSectionCache(config.getTranslatedChunkCacheSize() * 1024L * 1024L);
+        } else {
+            this.translatedSectionCache = null;
+        }
+
+        if (config.getTranslatedItemCacheSize() > 0) {
+            this.translatedItemCache = new TranslatedItemCache(config.getTranslatedItemCacheSize());
+        } else {
+            this.translatedItemCache = null;
+        }
+
         if (platformType != PlatformType.STANDALONE && config.getRemote().getAddress().equals("auto")) {
             // Set the remote address to localhost since that is where we are always connecting
             try {
@@ -331,6 +376,9 @@ public class RoryConnector {
         }
 
         generalThreadPool.shutdown();
+        chunkThreadPool.shutdown();
+        loginThreadPool.shutdown();
+        sessionEventLoopGroup.shutdownGracefully();
         bedrockServer.close();
         players.clear();
         defaultAuthType = null;
@@ -69,6 +69,24 @@ public interface RoryConfiguration {
 
     int getGeneralThreadPool();
 
+    int getChunkThreadPool();
+
+    int getSessionThreadPool();
+
+    int getLoginThreadPool();
+
+    int getLoginQueueSize();
+
+    int getChunkQueueSize();
+
+    int getWorldSendBudget();
+
+    int getEntityViewDistance();
+
+    int getMaxVisibleEntities();
+
+    boolean isMergeItemEntities();
+
     boolean isAllowThirdPartyCapes();
 
     boolean isAllowThirdPartyEars();
@@ -89,6 +107,14 @@ public interface RoryConfiguration {
 
     boolean isCacheChunks();
 
+    boolean isShareChunkCache();
+
+    boolean isUseClientBlobCache();
+
+    int getTranslatedChunkCacheSize();
+
+    int getTranslatedItemCacheSize();
+
     boolean isForceResourcePacks();
 
     boolean isXboxAchievementsEnabled();
@@ -115,6 +141,8 @@ public interface RoryConfiguration {
 
         int getCompressionLevel();
 
+        boolean isAdaptiveCompression();
+
         boolean isEnableProxyProtocol();
 
         List<String> getProxyProtocolWhitelistedIPs();
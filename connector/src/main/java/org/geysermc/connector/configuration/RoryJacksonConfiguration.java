@@ -92,6 +92,49 @@ public abstract class RoryJacksonConfiguration implements RoryConfiguration {
     @JsonProperty("general-thread-pool")
     private int generalThreadPool = 32;
 
+    @JsonProperty("chunk-thread-pool")
+    private int chunkThreadPool = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    public int getChunkThreadPool() {
+        return Math.max(1, chunkThreadPool);
+    }
+
+    @JsonProperty("session-thread-pool")
+    private int sessionThreadPool = Runtime.getRuntime().availableProcessors();
+
+    public int getSessionThreadPool() {
+        return Math.max(1, sessionThreadPool);
+    }
+
+    @JsonProperty("login-thread-pool")
+    private int loginThreadPool = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    public int getLoginThreadPool() {
+        return Math.max(1, loginThreadPool);
+    }
+
+    @JsonProperty("login-queue-size")
+    private int loginQueueSize = 512;
+
+    public int getLoginQueueSize() {
+        return Math.max(1, loginQueueSize);
+    }
+
+    @JsonProperty("chunk-queue-size")
+    private int chunkQueueSize = 256;
+
+    @JsonProperty("world-send-budget")
+    private int worldSendBudget = 128;
+
+    @JsonProperty("entity-view-distance")
+    private int entityViewDistance = 0;
+
+    @JsonProperty("max-visible-entities")
+    private int maxVisibleEntities = 0;
+
+    @JsonProperty("merge-item-entities")
+    private boolean mergeItemEntities = false;
+
     @JsonProperty("allow-third-party-capes")
     private boolean allowThirdPartyCapes = true;
 
@@ -114,6 +157,18 @@ public abstract class RoryJacksonConfiguration implements RoryConfiguration {
     @JsonProperty("cache-chunks")
     private boolean cacheChunks = false;
 
+    @JsonProperty("share-chunk-cache")
+    private boolean shareChunkCache = false;
+
+    @JsonProperty("use-client-blob-cache")
+    private boolean useClientBlobCache = false;
+
+    @JsonProperty("translated-chunk-cache-size")
+    private int translatedChunkCacheSize = 16;
+
+    @JsonProperty("translated-item-cache-size")
+    private int translatedItemCacheSize = 2048;
+
     @JsonProperty("cache-images")
     private int cacheImages = 0;
 
@@ -159,6 +214,9 @@ public abstract class RoryJacksonConfiguration implements RoryConfiguration {
             return Math.max(-1, Math.min(compressionLevel, 9));
         }
 
+        @JsonProperty("adaptive-compression")
+        private boolean adaptiveCompression = false;
+
         @JsonProperty("enable-proxy-protocol")
         private boolean enableProxyProtocol = false;
 
@@ -27,6 +27,7 @@ package org.geysermc.connector.dump;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.github.steveice10.mc.protocol.MinecraftConstants;
+import com.google.common.cache.CacheStats;
 import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSource;
 import com.google.common.io.Files;
@@ -38,9 +39,17 @@ import org.geysermc.connector.RoryConnector;
 import org.geysermc.connector.common.serializer.AsteriskSerializer;
 import org.geysermc.connector.configuration.RoryConfiguration;
 import org.geysermc.connector.network.BedrockProtocol;
+import org.geysermc.connector.network.session.CompressionPolicy;
 import org.geysermc.connector.network.session.RorySession;
+import org.geysermc.connector.network.session.SessionTicker;
+import org.geysermc.connector.network.session.UpstreamPacketScheduler;
+import org.geysermc.connector.network.translators.item.TranslatedItemCache;
+import org.geysermc.connector.network.translators.item.TranslatedRecipeCache;
+import org.geysermc.connector.network.translators.world.chunk.ChunkTranslationQueue;
+import org.geysermc.connector.network.translators.world.chunk.TranslatedSectionCache;
 import org.geysermc.connector.utils.DockerCheck;
 import org.geysermc.connector.utils.FileUtils;
+import org.geysermc.connector.utils.LoginEncryptionUtils;
 import org.geysermc.floodgate.util.DeviceOS;
 
 import java.io.File;
@@ -49,7 +58,15 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Getter
 public class DumpInfo {
@@ -63,6 +80,7 @@ public class DumpInfo {
     private final HashInfo hashInfo;
     private final Object2IntMap<DeviceOS> userPlatforms;
     private final RamInfo ramInfo;
+    private final PerformanceInfo performanceInfo;
     private final BootstrapDumpInfo bootstrapInfo;
 
     public DumpInfo() {
@@ -97,6 +115,8 @@ public class DumpInfo {
 
         this.ramInfo = new DumpInfo.RamInfo();
 
+        this.performanceInfo = new DumpInfo.PerformanceInfo();
+
         this.userPlatforms = new Object2IntOpenHashMap<>();
         for (RorySession session : RoryConnector.getInstance().getPlayers()) {
             DeviceOS device = session.getClientData().getDeviceOS();
@@ -196,4 +216,160 @@ public class DumpInfo {
             this.max = Runtime.getRuntime().maxMemory() / MEGABYTE;
         }
     }
+
+    @Getter
+    public static class PerformanceInfo {
+        @JsonIgnore
+        private static final long CHUNK_CACHE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+        private final CacheInfo translatedSectionCache;
+        private final CacheInfo translatedItemCache;
+        private final CacheInfo translatedRecipeCache;
+        private final ChunkQueueInfo chunkQueue;
+        private final PacketSchedulerInfo packetScheduler;
+        private long chunkCacheMemory;
+        /**
+         * Sessions whose chunk cache could not be measured in time, and are left out of the chunk cache memory
+         */
+        private int unmeasuredChunkCaches;
+        /**
+         * Compression level to the amount of sessions using it
+         */
+        private final Map<Integer, Integer> compressionLevels = new TreeMap<>();
+        private final TickInfo ticks;
+        private final LoginInfo logins;
+
+        PerformanceInfo() {
+            TranslatedSectionCache sectionCache = RoryConnector.getInstance().getTranslatedSectionCache();
+            this.translatedSectionCache = sectionCache != null ? new CacheInfo(sectionCache.getSize(), sectionCache.getStats()) : null;
+            TranslatedItemCache itemCache = RoryConnector.getInstance().getTranslatedItemCache();
+            this.translatedItemCache = itemCache != null ? new CacheInfo(itemCache.getSize(), itemCache.getStats()) : null;
+            TranslatedRecipeCache recipeCache = RoryConnector.getInstance().getTranslatedRecipeCache();
+            this.translatedRecipeCache = new CacheInfo(recipeCache.getSize(), recipeCache.getStats());
+            this.chunkQueue = new ChunkQueueInfo();
+            this.packetScheduler = new PacketSchedulerInfo();
+            this.ticks = new TickInfo(RoryConnector.getInstance().getSessionTicker());
+            this.logins = new LoginInfo();
+            List<Future<Long>> chunkCacheMeasurements = new ArrayList<>();
+            for (RorySession session : RoryConnector.getInstance().getPlayers()) {
+                // The chunk cache may only be used from the session's event loop
+                if (session.getEventLoop().inEventLoop()) {
+                    this.chunkCacheMemory += session.getChunkCache().getMemoryUsage();
+                } else {
+                    chunkCacheMeasurements.add(session.getEventLoop().submit(() -> session.getChunkCache().getMemoryUsage()));
+                }
+
+                CompressionPolicy compressionPolicy = session.getCompressionPolicy();
+                int compressionLevel = compressionPolicy != null ? compressionPolicy.getCompressionLevel()
+                        : RoryConnector.getInstance().getConfig().getBedrock().getCompressionLevel();
+                this.compressionLevels.merge(compressionLevel, 1, Integer::sum);
+            }
+
+            long deadline = System.nanoTime() + CHUNK_CACHE_TIMEOUT_NANOS;
+            for (Future<Long> measurement : chunkCacheMeasurements) {
+                try {
+                    this.chunkCacheMemory += measurement.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException | TimeoutException e) {
+                    this.unmeasuredChunkCaches++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    this.unmeasuredChunkCaches++;
+                }
+            }
+        }
+    }
+
+    @Getter
+    public static class ChunkQueueInfo {
+
+        private int queuedChunks;
+        private int maxQueuedChunks;
+        private final long coalescedChunks;
+        private final long droppedChunks;
+        private final long inlineChunks;
+
+        ChunkQueueInfo() {
+            for (RorySession session : RoryConnector.getInstance().getPlayers()) {
+                int size = session.getChunkTranslationQueue().size();
+                this.queuedChunks += size;
+                this.maxQueuedChunks = Math.max(maxQueuedChunks, size);
+            }
+            this.coalescedChunks = ChunkTranslationQueue.getCoalescedChunks();
+            this.droppedChunks = ChunkTranslationQueue.getDroppedChunks();
+            this.inlineChunks = ChunkTranslationQueue.getInlineChunks();
+        }
+    }
+
+    @Getter
+    public static class PacketSchedulerInfo {
+
+        private int queuedWorldPackets;
+        private int maxQueuedWorldPackets;
+        private final long deferredWorldPackets;
+        private final long droppedCosmeticPackets;
+
+        PacketSchedulerInfo() {
+            for (RorySession session : RoryConnector.getInstance().getPlayers()) {
+                int size = session.getPacketScheduler().getQueuedWorldPackets();
+                this.queuedWorldPackets += size;
+                this.maxQueuedWorldPackets = Math.max(maxQueuedWorldPackets, size);
+            }
+            this.deferredWorldPackets = UpstreamPacketScheduler.getDeferredWorldPackets();
+            this.droppedCosmeticPackets = UpstreamPacketScheduler.getDroppedCosmeticPackets();
+        }
+    }
+
+    @Getter
+    public static class TickInfo {
+
+        private final long ticks;
+        private final long overruns;
+        private final double averageTickMillis;
+        private final double maxTickMillis;
+
+        TickInfo(SessionTicker ticker) {
+            this.ticks = ticker.getTicks();
+            this.overruns = ticker.getOverruns();
+            this.averageTickMillis = ticker.getAverageTickMillis();
+            this.maxTickMillis = ticker.getMaxTickMillis();
+        }
+    }
+
+    @Getter
+    public static class LoginInfo {
+
+        private final int queuedLogins;
+        private final long verifiedLogins;
+        private final long rejectedLogins;
+        private final double averageVerificationMillis;
+        private final double maxVerificationMillis;
+        private final double averageQueueWaitMillis;
+        private final double maxQueueWaitMillis;
+
+        LoginInfo() {
+            this.queuedLogins = RoryConnector.getInstance().getLoginThreadPool().getQueue().size();
+            this.verifiedLogins = LoginEncryptionUtils.getVerifiedLogins();
+            this.rejectedLogins = LoginEncryptionUtils.getRejectedLogins();
+            this.averageVerificationMillis = LoginEncryptionUtils.getAverageVerificationMillis();
+            this.maxVerificationMillis = LoginEncryptionUtils.getMaxVerificationMillis();
+            this.averageQueueWaitMillis = LoginEncryptionUtils.getAverageQueueWaitMillis();
+            this.maxQueueWaitMillis = LoginEncryptionUtils.getMaxQueueWaitMillis();
+        }
+    }
+
+    @Getter
+    public static class CacheInfo {
+
+        private final long size;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+
+        CacheInfo(long size, CacheStats stats) {
+            this.size = size;
+            this.hits = stats.hitCount();
+            this.misses = stats.missCount();
+            this.evictions = stats.evictionCount();
+        }
+    }
 }
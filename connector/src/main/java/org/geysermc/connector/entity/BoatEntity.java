@@ -114,7 +114,7 @@ public class BoatEntity extends Entity {
                     // Get the entity by the first stored passenger and convey motion in this manner
                     Entity entity = session.getEntityCache().getEntityByJavaId(this.passengers.iterator().nextLong());
                     if (entity != null) {
-                        session.getConnector().getGeneralThreadPool().execute(() ->
+                        session.getEventLoop().execute(() ->
                                 updateLeftPaddle(session, entity)
                         );
                     }
@@ -131,7 +131,7 @@ public class BoatEntity extends Entity {
                 if (!this.passengers.isEmpty()) {
                     Entity entity = session.getEntityCache().getEntityByJavaId(this.passengers.iterator().nextLong());
                     if (entity != null) {
-                        session.getConnector().getGeneralThreadPool().execute(() ->
+                        session.getEventLoop().execute(() ->
                                 updateRightPaddle(session, entity)
                         );
                     }
@@ -161,7 +161,7 @@ public class BoatEntity extends Entity {
             paddleTimeLeft += ROWING_SPEED;
             sendAnimationPacket(session, rower, AnimatePacket.Action.ROW_LEFT, paddleTimeLeft);
 
-            session.getConnector().getGeneralThreadPool().schedule(() ->
+            session.getEventLoop().schedule(() ->
                     updateLeftPaddle(session, rower),
                     100,
                     TimeUnit.MILLISECONDS
@@ -174,7 +174,7 @@ public class BoatEntity extends Entity {
             paddleTimeRight += ROWING_SPEED;
             sendAnimationPacket(session, rower, AnimatePacket.Action.ROW_RIGHT, paddleTimeRight);
 
-            session.getConnector().getGeneralThreadPool().schedule(() ->
+            session.getEventLoop().schedule(() ->
                             updateRightPaddle(session, rower),
                     100,
                     TimeUnit.MILLISECONDS
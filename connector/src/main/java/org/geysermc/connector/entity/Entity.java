@@ -36,6 +36,7 @@ import com.nukkitx.protocol.bedrock.data.entity.EntityFlag;
 import com.nukkitx.protocol.bedrock.data.entity.EntityFlags;
 import com.nukkitx.protocol.bedrock.packet.*;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import net.kyori.adventure.text.Component;
@@ -48,14 +49,17 @@ import org.geysermc.connector.network.session.RorySession;
 import org.geysermc.connector.network.translators.chat.MessageTranslator;
 import org.geysermc.connector.utils.AttributeUtils;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 @Getter
 @Setter
 public class Entity {
+    /**
+     * How many movement deltas may be sent in a row before the full position is sent again, so that any
+     * drift on the client's side is corrected
+     */
+    private static final int MOVEMENT_RESYNC_INTERVAL = 100;
+
     protected long entityId;
     protected long geyserId;
 
@@ -81,6 +85,35 @@ public class Entity {
     protected LongOpenHashSet passengers = new LongOpenHashSet();
     protected Map<AttributeType, Attribute> attributes = new HashMap<>();
     protected EntityDataMap metadata = new EntityDataMap();
+    /**
+     * The metadata the Bedrock client last received, so only changed entries need to be sent
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<EntityData, Object> lastSentMetadata = new EnumMap<>(EntityData.class);
+
+    /*
+     * The movement state the Bedrock client last received, used to only send what changed since then.
+     * A null position means the client's state is unknown and the next move must be absolute.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Vector3f lastSentPosition;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Vector3f lastSentRotation;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean lastSentOnGround;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int deltasSinceResync;
+    /**
+     * If this entity has moved since the last movement flush
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean movementPending;
 
     public Entity(long entityId, long geyserId, EntityType entityType, Vector3f position, Vector3f motion, Vector3f rotation) {
         this.entityId = entityId;
@@ -121,6 +154,8 @@ public class Entity {
 
         valid = true;
         session.sendUpstreamPacket(addEntityPacket);
+        markMetadataSent();
+        markMovementSent();
 
         session.getConnector().getLogger().debug("Spawned entity " + entityType + " at location " + position + " with id " + geyserId + " (java id " + entityId + ")");
     }
@@ -146,6 +181,8 @@ public class Entity {
         session.sendUpstreamPacket(removeEntityPacket);
 
         valid = false;
+        // The client forgets everything about the entity
+        resetMovementState();
         return true;
     }
 
@@ -153,19 +190,19 @@ public class Entity {
         moveRelative(session, relX, relY, relZ, Vector3f.from(yaw, pitch, this.rotation.getZ()), isOnGround);
     }
 
+    /**
+     * Applies a relative movement. The Bedrock client is not told immediately; all movement of this entity
+     * within the current tick is combined and sent once by {@link #flushMovement(RorySession)}.
+     */
     public void moveRelative(RorySession session, double relX, double relY, double relZ, Vector3f rotation, boolean isOnGround) {
         setRotation(rotation);
         setOnGround(isOnGround);
         this.position = Vector3f.from(position.getX() + relX, position.getY() + relY, position.getZ() + relZ);
 
-        MoveEntityAbsolutePacket moveEntityPacket = new MoveEntityAbsolutePacket();
-        moveEntityPacket.setRuntimeEntityId(geyserId);
-        moveEntityPacket.setPosition(position);
-        moveEntityPacket.setRotation(getBedrockRotation());
-        moveEntityPacket.setOnGround(isOnGround);
-        moveEntityPacket.setTeleported(false);
-
-        session.sendUpstreamPacket(moveEntityPacket);
+        if (!movementPending) {
+            movementPending = true;
+            session.getEntityCache().addPendingMovement(this);
+        }
     }
 
     public void moveAbsolute(RorySession session, Vector3f position, float yaw, float pitch, boolean isOnGround, boolean teleported) {
@@ -177,14 +214,105 @@ public class Entity {
         setRotation(rotation);
         setOnGround(isOnGround);
 
+        sendAbsoluteMovement(session, teleported);
+    }
+
+    /**
+     * Sends any movement accumulated since the last flush. Only the fields that changed since the client's last
+     * known state are included, unless that state is unknown or a periodic resync is due.
+     *
+     * @param session RorySession
+     */
+    public void flushMovement(RorySession session) {
+        if (!movementPending) {
+            return;
+        }
+        movementPending = false;
+        if (!valid) {
+            return;
+        }
+
+        if (lastSentPosition == null || deltasSinceResync >= MOVEMENT_RESYNC_INTERVAL) {
+            sendAbsoluteMovement(session, false);
+            return;
+        }
+
+        Vector3f bedrockRotation = getBedrockRotation();
+        MoveEntityDeltaPacket moveEntityDeltaPacket = new MoveEntityDeltaPacket();
+        moveEntityDeltaPacket.setRuntimeEntityId(geyserId);
+        Set<MoveEntityDeltaPacket.Flag> flags = moveEntityDeltaPacket.getFlags();
+        if (position.getX() != lastSentPosition.getX()) {
+            moveEntityDeltaPacket.setX(position.getX());
+            flags.add(MoveEntityDeltaPacket.Flag.HAS_X);
+        }
+        if (position.getY() != lastSentPosition.getY()) {
+            moveEntityDeltaPacket.setY(position.getY());
+            flags.add(MoveEntityDeltaPacket.Flag.HAS_Y);
+        }
+        if (position.getZ() != lastSentPosition.getZ()) {
+            moveEntityDeltaPacket.setZ(position.getZ());
+            flags.add(MoveEntityDeltaPacket.Flag.HAS_Z);
+        }
+        if (bedrockRotation.getX() != lastSentRotation.getX()) {
+            moveEntityDeltaPacket.setPitch(bedrockRotation.getX());
+            flags.add(MoveEntityDeltaPacket.Flag.HAS_PITCH);
+        }
+        if (bedrockRotation.getY() != lastSentRotation.getY()) {
+            moveEntityDeltaPacket.setYaw(bedrockRotation.getY());
+            flags.add(MoveEntityDeltaPacket.Flag.HAS_YAW);
+        }
+        if (bedrockRotation.getZ() != lastSentRotation.getZ()) {
+            moveEntityDeltaPacket.setHeadYaw(bedrockRotation.getZ());
+            flags.add(MoveEntityDeltaPacket.Flag.HAS_HEAD_YAW);
+        }
+
+        if (flags.isEmpty() && onGround == lastSentOnGround) {
+            // The entity ended up where the client already has it
+            return;
+        }
+        if (onGround) {
+            flags.add(MoveEntityDeltaPacket.Flag.ON_GROUND);
+        }
+
+        session.sendUpstreamPacket(moveEntityDeltaPacket);
+        lastSentPosition = position;
+        lastSentRotation = bedrockRotation;
+        lastSentOnGround = onGround;
+        deltasSinceResync++;
+    }
+
+    /**
+     * Should be called by subclasses that send their own movement packets, so that a pending movement is
+     * not sent afterwards and the next movement is sent in full.
+     */
+    protected void resetMovementState() {
+        movementPending = false;
+        lastSentPosition = null;
+    }
+
+    private void sendAbsoluteMovement(RorySession session, boolean teleported) {
+        if (!valid) {
+            // Not spawned on the client (yet)
+            return;
+        }
+
         MoveEntityAbsolutePacket moveEntityPacket = new MoveEntityAbsolutePacket();
         moveEntityPacket.setRuntimeEntityId(geyserId);
         moveEntityPacket.setPosition(position);
         moveEntityPacket.setRotation(getBedrockRotation());
-        moveEntityPacket.setOnGround(isOnGround);
+        moveEntityPacket.setOnGround(onGround);
         moveEntityPacket.setTeleported(teleported);
 
         session.sendUpstreamPacket(moveEntityPacket);
+        markMovementSent();
+    }
+
+    private void markMovementSent() {
+        movementPending = false;
+        lastSentPosition = position;
+        lastSentRotation = getBedrockRotation();
+        lastSentOnGround = onGround;
+        deltasSinceResync = 0;
     }
 
     /**
@@ -341,10 +469,38 @@ public class Entity {
 
         SetEntityDataPacket entityDataPacket = new SetEntityDataPacket();
         entityDataPacket.setRuntimeEntityId(geyserId);
-        entityDataPacket.getMetadata().putAll(metadata);
+        EntityDataMap changedMetadata = entityDataPacket.getMetadata();
+        for (Map.Entry<EntityData, Object> entry : metadata.entrySet()) {
+            Object value = entry.getValue();
+            if (!value.equals(lastSentMetadata.get(entry.getKey()))) {
+                changedMetadata.put(entry.getKey(), value);
+                // Flags are mutated in place, so keep a copy of what was sent
+                lastSentMetadata.put(entry.getKey(), value instanceof EntityFlags ? ((EntityFlags) value).copy() : value);
+            }
+        }
+        if (lastSentMetadata.size() != metadata.size()) {
+            // Entries removed locally must be sent again once they are set, even if the value is the same
+            lastSentMetadata.keySet().retainAll(metadata.keySet());
+        }
+
+        if (changedMetadata.isEmpty()) {
+            return;
+        }
         session.sendUpstreamPacket(entityDataPacket);
     }
 
+    /**
+     * Records the full metadata as known to the client. Should be called after sending a packet that contains
+     * all of this entity's metadata, such as when spawning it.
+     */
+    public void markMetadataSent() {
+        lastSentMetadata.clear();
+        for (Map.Entry<EntityData, Object> entry : metadata.entrySet()) {
+            Object value = entry.getValue();
+            lastSentMetadata.put(entry.getKey(), value instanceof EntityFlags ? ((EntityFlags) value).copy() : value);
+        }
+    }
+
     /**
      * x = Pitch, y = HeadYaw, z = Yaw
      *
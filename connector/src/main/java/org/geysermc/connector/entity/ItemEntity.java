@@ -28,12 +28,19 @@ package org.geysermc.connector.entity;
 import com.github.steveice10.mc.protocol.data.game.entity.metadata.EntityMetadata;
 import com.github.steveice10.mc.protocol.data.game.entity.metadata.ItemStack;
 import com.nukkitx.math.vector.Vector3f;
+import com.nukkitx.protocol.bedrock.data.inventory.ItemData;
 import com.nukkitx.protocol.bedrock.packet.AddItemEntityPacket;
+import lombok.Getter;
 import org.geysermc.connector.entity.type.EntityType;
 import org.geysermc.connector.network.session.RorySession;
 import org.geysermc.connector.network.translators.item.ItemTranslator;
 
 public class ItemEntity extends Entity {
+    /**
+     * The translated item, kept so the entity can be spawned again after it was hidden
+     */
+    @Getter
+    private ItemData item;
 
     public ItemEntity(long entityId, long geyserId, EntityType entityType, Vector3f position, Vector3f motion, Vector3f rotation) {
         super(entityId, geyserId, entityType, position.add(0d, entityType.getOffset(), 0d), motion, rotation);
@@ -47,6 +54,18 @@ public class ItemEntity extends Entity {
         super.setMotion(motion);
     }
 
+    @Override
+    public void spawnEntity(RorySession session) {
+        if (item == null) {
+            // The item will be added once its metadata is known
+            super.spawnEntity(session);
+            return;
+        }
+
+        valid = true;
+        sendAddItemEntity(session);
+    }
+
     @Override
     public void moveAbsolute(RorySession session, Vector3f position, Vector3f rotation, boolean isOnGround, boolean teleported) {
         super.moveAbsolute(session, position.add(0d, this.entityType.getOffset(), 0d), rotation, isOnGround, teleported);
@@ -55,17 +74,25 @@ public class ItemEntity extends Entity {
     @Override
     public void updateBedrockMetadata(EntityMetadata entityMetadata, RorySession session) {
         if (entityMetadata.getId() == 7) {
-            AddItemEntityPacket itemPacket = new AddItemEntityPacket();
-            itemPacket.setRuntimeEntityId(geyserId);
-            itemPacket.setPosition(position.add(0d, this.entityType.getOffset(), 0d));
-            itemPacket.setMotion(motion);
-            itemPacket.setUniqueEntityId(geyserId);
-            itemPacket.setFromFishing(false);
-            itemPacket.getMetadata().putAll(metadata);
-            itemPacket.setItemInHand(ItemTranslator.translateToBedrock(session, (ItemStack) entityMetadata.getValue()));
-            session.sendUpstreamPacket(itemPacket);
+            item = ItemTranslator.translateToBedrock(session, (ItemStack) entityMetadata.getValue());
+            if (valid) {
+                sendAddItemEntity(session);
+            }
         }
 
         super.updateBedrockMetadata(entityMetadata, session);
     }
+
+    private void sendAddItemEntity(RorySession session) {
+        AddItemEntityPacket itemPacket = new AddItemEntityPacket();
+        itemPacket.setRuntimeEntityId(geyserId);
+        itemPacket.setPosition(position.add(0d, this.entityType.getOffset(), 0d));
+        itemPacket.setMotion(motion);
+        itemPacket.setUniqueEntityId(geyserId);
+        itemPacket.setFromFishing(false);
+        itemPacket.getMetadata().putAll(metadata);
+        itemPacket.setItemInHand(item);
+        session.sendUpstreamPacket(itemPacket);
+        markMetadataSent();
+    }
 }
@@ -96,7 +96,7 @@ public class ItemFrameEntity extends Entity {
         session.getItemFrameCache().put(bedrockPosition, this);
 
         // Delay is required, or else loading in frames on chunk load is sketchy at best
-        session.getConnector().getGeneralThreadPool().schedule(() -> {
+        session.getEventLoop().schedule(() -> {
             updateBlock(session);
             session.getConnector().getLogger().debug("Spawned item frame at location " + bedrockPosition + " with java id " + entityId);
         }, 500, TimeUnit.MILLISECONDS);
@@ -152,5 +152,6 @@ public class VillagerEntity extends AbstractMerchantEntity {
         moveEntityPacket.setOnGround(isOnGround);
         moveEntityPacket.setTeleported(false);
         session.sendUpstreamPacket(moveEntityPacket);
+        resetMovementState();
     }
 }
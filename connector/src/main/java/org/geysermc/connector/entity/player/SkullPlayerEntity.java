@@ -87,6 +87,7 @@ public class SkullPlayerEntity extends PlayerEntity {
 
         valid = true;
         session.sendUpstreamPacket(addPlayerPacket);
+        markMetadataSent();
 
         updateAllEquipment(session);
         updateBedrockAttributes(session);
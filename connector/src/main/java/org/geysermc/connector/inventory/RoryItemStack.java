@@ -99,10 +99,18 @@ public class RoryItemStack {
     }
 
     public ItemData getItemData(RorySession session) {
-        ItemData itemData = ItemTranslator.translateToBedrock(session, getItemStack());
-        itemData.setNetId(getNetId());
-        itemData.setUsingNetId(true); // Seems silly - this should probably be on the protocol level
-        return itemData;
+        return withNetId(ItemTranslator.translateToBedrock(session, getItemStack()));
+    }
+
+    /**
+     * @param itemData the translated item, which may be shared with other slots and sessions and is not modified
+     * @return a copy of the item with this stack's net ID
+     */
+    ItemData withNetId(ItemData itemData) {
+        ItemData copy = itemData.toBuilder().build();
+        copy.setNetId(getNetId());
+        copy.setUsingNetId(true); // Seems silly - this should probably be on the protocol level
+        return copy;
     }
 
     public ItemEntry getItemEntry() {
@@ -42,17 +42,41 @@ import org.geysermc.connector.network.translators.world.block.BlockTranslator1_1
 import org.geysermc.connector.network.translators.world.block.BlockTranslator1_16_210;
 import org.geysermc.connector.utils.*;
 
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Queue;
 
 public class UpstreamPacketHandler extends LoggingPacketHandler {
+    /*
+     * Resource pack chunk requests are served one at a time and in order, and only accessed from the session's event loop.
+     */
+    private final Queue<ResourcePackChunkRequestPacket> chunkRequests = new ArrayDeque<>();
+    /**
+     * If the chunk requests wait for other sessions to send their chunks
+     */
+    private boolean waitingToSendChunk = false;
 
     public UpstreamPacketHandler(RoryConnector connector, RorySession session) {
         super(connector, session);
     }
 
+    /**
+     * Translate the packet on the session's event loop, alongside Java packets, rather than on the RakNet thread.
+     *
+     * @return the result of the translation if this already is the event loop, otherwise {@link #isTranslatable(BedrockPacket)}
+     */
     private boolean translateAndDefault(BedrockPacket packet) {
-        return PacketTranslatorRegistry.BEDROCK_TRANSLATOR.translate(packet.getClass(), packet, session);
+        if (session.getEventLoop().inEventLoop()) {
+            return PacketTranslatorRegistry.BEDROCK_TRANSLATOR.translate(packet.getClass(), packet, session);
+        }
+        session.executeInEventLoop(() -> PacketTranslatorRegistry.BEDROCK_TRANSLATOR.translate(packet.getClass(), packet, session));
+        return isTranslatable(packet);
+    }
+
+    /**
+     * @return what translating the packet is expected to return, for when it is only queued on the event loop
+     */
+    private boolean isTranslatable(BedrockPacket packet) {
+        return !session.isClosed() && PacketTranslatorRegistry.BEDROCK_TRANSLATOR.hasTranslator(packet.getClass());
     }
 
     @Override
@@ -77,8 +101,12 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
         session.setBlockTranslator(packetCodec.getProtocolVersion() >= Bedrock_v428.V428_CODEC.getProtocolVersion()
                 ? BlockTranslator1_16_210.INSTANCE : BlockTranslator1_16_100.INSTANCE);
 
-        LoginEncryptionUtils.encryptPlayerConnection(connector, session, loginPacket);
+        // Verifying the login is expensive, so it is done off the network threads
+        LoginEncryptionUtils.encryptPlayerConnection(connector, session, loginPacket, this::sendResourcePacksInfo);
+        return true;
+    }
 
+    private void sendResourcePacksInfo() {
         PlayStatusPacket playStatus = new PlayStatusPacket();
         playStatus.setStatus(PlayStatusPacket.Status.LOGIN_SUCCESS);
         session.sendUpstreamPacket(playStatus);
@@ -87,12 +115,11 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
         for(ResourcePack resourcePack : ResourcePack.PACKS.values()) {
             ResourcePackManifest.Header header = resourcePack.getManifest().getHeader();
             resourcePacksInfo.getResourcePackInfos().add(new ResourcePacksInfoPacket.Entry(
-                    header.getUuid().toString(), header.getVersionString(), resourcePack.getFile().length(),
+                    header.getUuid().toString(), header.getVersionString(), resourcePack.getSize(),
                             "", "", "", false, false));
         }
         resourcePacksInfo.setForcedToAccept(RoryConnector.getInstance().getConfig().isForceResourcePacks());
         session.sendUpstreamPacket(resourcePacksInfo);
-        return true;
     }
 
     @Override
@@ -111,9 +138,9 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
                     ResourcePackManifest.Header header = pack.getManifest().getHeader();
 
                     data.setPackId(header.getUuid());
-                    int chunkCount = (int) Math.ceil((int) pack.getFile().length() / (double) ResourcePack.CHUNK_SIZE);
+                    int chunkCount = pack.getChunkCount();
                     data.setChunkCount(chunkCount);
-                    data.setCompressedPackSize(pack.getFile().length());
+                    data.setCompressedPackSize(pack.getSize());
                     data.setMaxChunkSize(ResourcePack.CHUNK_SIZE);
                     data.setHash(pack.getSha256());
                     data.setPackVersion(packID[1]);
@@ -151,8 +178,25 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
         return true;
     }
 
+    @Override
+    public boolean handle(ClientCacheStatusPacket packet) {
+        session.getChunkBlobCache().setEnabled(packet.isSupported() && connector.getConfig().isUseClientBlobCache());
+        return true;
+    }
+
+    @Override
+    public boolean handle(ClientCacheBlobStatusPacket packet) {
+        session.getChunkBlobCache().handleBlobStatus(packet);
+        return true;
+    }
+
     @Override
     public boolean handle(ModalFormResponsePacket packet) {
+        session.executeInEventLoop(() -> handleForm(packet));
+        return true;
+    }
+
+    private boolean handleForm(ModalFormResponsePacket packet) {
         switch (packet.getFormId()) {
             case AdvancementsCache.ADVANCEMENT_INFO_FORM_ID:
                 return session.getAdvancementsCache().handleInfoForm(packet.getFormData());
@@ -191,31 +235,37 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
 
     @Override
     public boolean handle(SetLocalPlayerAsInitializedPacket packet) {
-        LanguageUtils.loadRoryLocale(session.getLocale());
+        session.executeInEventLoop(() -> {
+            LanguageUtils.loadRoryLocale(session.getLocale());
 
-        if (!session.isLoggedIn() && !session.isLoggingIn() && session.getRemoteAuthType() == AuthType.ONLINE) {
-            // TODO it is safer to key authentication on something that won't change (UUID, not username)
-            if (!couldLoginUserByName(session.getAuthData().getName())) {
-                LoginEncryptionUtils.showLoginWindow(session);
+            if (!session.isLoggedIn() && !session.isLoggingIn() && session.getRemoteAuthType() == AuthType.ONLINE) {
+                // TODO it is safer to key authentication on something that won't change (UUID, not username)
+                if (!couldLoginUserByName(session.getAuthData().getName())) {
+                    LoginEncryptionUtils.showLoginWindow(session);
+                }
+                // else we were able to log the user in
             }
-            // else we were able to log the user in
-        }
-        return translateAndDefault(packet);
+            translateAndDefault(packet);
+        });
+        return isTranslatable(packet);
     }
 
     @Override
     public boolean handle(MovePlayerPacket packet) {
-        if (session.isLoggingIn()) {
-            SetTitlePacket titlePacket = new SetTitlePacket();
-            titlePacket.setType(SetTitlePacket.Type.ACTIONBAR);
-            titlePacket.setText(LanguageUtils.getPlayerLocaleString("geyser.auth.login.wait", session.getLocale()));
-            titlePacket.setFadeInTime(0);
-            titlePacket.setFadeOutTime(1);
-            titlePacket.setStayTime(2);
-            session.sendUpstreamPacket(titlePacket);
-        }
+        session.executeInEventLoop(() -> {
+            if (session.isLoggingIn()) {
+                SetTitlePacket titlePacket = new SetTitlePacket();
+                titlePacket.setType(SetTitlePacket.Type.ACTIONBAR);
+                titlePacket.setText(LanguageUtils.getPlayerLocaleString("geyser.auth.login.wait", session.getLocale()));
+                titlePacket.setFadeInTime(0);
+                titlePacket.setFadeOutTime(1);
+                titlePacket.setStayTime(2);
+                session.sendUpstreamPacket(titlePacket);
+            }
 
-        return translateAndDefault(packet);
+            translateAndDefault(packet);
+        });
+        return isTranslatable(packet);
     }
 
     @Override
@@ -225,27 +275,63 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
 
     @Override
     public boolean handle(ResourcePackChunkRequestPacket packet) {
-        ResourcePackChunkDataPacket data = new ResourcePackChunkDataPacket();
         ResourcePack pack = ResourcePack.PACKS.get(packet.getPackId().toString());
+        if (pack == null || packet.getChunkIndex() < 0 || packet.getChunkIndex() >= pack.getChunkCount()) {
+            connector.getLogger().debug("Ignoring request for chunk " + packet.getChunkIndex() + " of resource pack " + packet.getPackId());
+            return true;
+        }
+
+        session.executeInEventLoop(() -> {
+            if (chunkRequests.size() >= ResourcePack.getTotalChunkCount()) {
+                // More than downloading every pack needs
+                connector.getLogger().debug("Ignoring request for chunk " + packet.getChunkIndex() + " of resource pack " + packet.getPackId() + " as too many are queued");
+                return;
+            }
+            chunkRequests.add(packet);
+            if (!waitingToSendChunk) {
+                sendResourcePackChunks();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Send the requested chunks, as long as not too many chunks are being sent across all sessions.
+     */
+    private void sendResourcePackChunks() {
+        waitingToSendChunk = false;
+        while (!chunkRequests.isEmpty()) {
+            if (session.isClosed()) {
+                chunkRequests.clear();
+                // Let another session send a chunk instead, in case this one was woken up to do so
+                ResourcePack.wakeWaitingSender();
+                return;
+            }
+            if (!ResourcePack.startSendingChunk()) {
+                waitingToSendChunk = true;
+                ResourcePack.waitToSendChunk(() -> session.getEventLoop().execute(this::sendResourcePackChunks));
+                return;
+            }
+            try {
+                sendResourcePackChunk(chunkRequests.poll());
+            } finally {
+                ResourcePack.finishSendingChunk();
+            }
+        }
+    }
+
+    private void sendResourcePackChunk(ResourcePackChunkRequestPacket packet) {
+        ResourcePack pack = ResourcePack.PACKS.get(packet.getPackId().toString());
+        ResourcePackChunkDataPacket data = new ResourcePackChunkDataPacket();
 
         data.setChunkIndex(packet.getChunkIndex());
         data.setProgress(packet.getChunkIndex() * ResourcePack.CHUNK_SIZE);
         data.setPackVersion(packet.getPackVersion());
         data.setPackId(packet.getPackId());
 
-        int offset = packet.getChunkIndex() * ResourcePack.CHUNK_SIZE;
-        byte[] packData = new byte[(int) MathUtils.constrain(pack.getFile().length() - offset, 0, ResourcePack.CHUNK_SIZE)];
-
-        try (InputStream inputStream = new FileInputStream(pack.getFile())) {
-            inputStream.skip(offset);
-            inputStream.read(packData, 0, packData.length);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        data.setData(pack.getChunk(packet.getChunkIndex()));
 
-        data.setData(packData);
-
-        session.sendUpstreamPacket(data);
-        return true;
+        // Encoded straight away, so the copy of the chunk is not kept until the session's packets are next sent
+        session.sendUpstreamPacketImmediately(data);
     }
 }
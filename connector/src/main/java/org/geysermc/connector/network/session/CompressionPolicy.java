@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session;
+
+import lombok.Getter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.zip.Deflater;
+
+/**
+ * Adjusts the compression level of a single Bedrock session while it is connected. Clients on a local network get
+ * cheap compression, since bandwidth is plentiful there, and clients with a high latency, such as those on mobile
+ * networks, get the best compression, since bandwidth is scarce there. All clients get cheap compression while this
+ * machine is under high load. Other clients use the configured compression level.
+ */
+public class CompressionPolicy {
+    /**
+     * Sessions with a latency up to this are assumed to be on a local network
+     */
+    private static final long LOCAL_LATENCY_MILLIS = 10;
+    /**
+     * Sessions with a latency of at least this are assumed to be on a slow network
+     */
+    private static final long SLOW_LATENCY_MILLIS = 150;
+    /**
+     * The system load, relative to the amount of processors, above which compression is reduced
+     */
+    private static final double HIGH_LOAD = 0.8;
+    private static final int CHEAP_LEVEL = 1;
+    /**
+     * The level zlib uses for {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    private static final int DEFAULT_LEVEL = 6;
+    /**
+     * How often the compression level of a session is reconsidered
+     */
+    private static final int UPDATE_INTERVAL_TICKS = 100;
+
+    private static final OperatingSystemMXBean OPERATING_SYSTEM = ManagementFactory.getOperatingSystemMXBean();
+    private static final long LOAD_SAMPLE_INTERVAL_MILLIS = 1000;
+    private static volatile double load;
+    private static volatile long lastLoadSample;
+
+    private final RorySession session;
+    private final int configuredLevel;
+    @Getter
+    private int compressionLevel;
+    private int ticksUntilUpdate = UPDATE_INTERVAL_TICKS;
+
+    public CompressionPolicy(RorySession session, int configuredLevel) {
+        this.session = session;
+        // Compared with the other levels, so -1 is replaced by the level it stands for
+        this.configuredLevel = configuredLevel == Deflater.DEFAULT_COMPRESSION ? DEFAULT_LEVEL : configuredLevel;
+        this.compressionLevel = this.configuredLevel;
+    }
+
+    /**
+     * Should be called every session tick.
+     */
+    public void tick() {
+        if (--ticksUntilUpdate > 0) {
+            return;
+        }
+        ticksUntilUpdate = UPDATE_INTERVAL_TICKS;
+
+        int level = configuredLevel;
+        long latency = session.getUpstream().getSession().getLatency();
+        if ((latency >= 0 && latency <= LOCAL_LATENCY_MILLIS) || getLoad() >= HIGH_LOAD) {
+            level = Math.min(level, CHEAP_LEVEL);
+        } else if (latency >= SLOW_LATENCY_MILLIS && level > 0) {
+            // Unless compression was turned off entirely
+            level = Math.max(level, Deflater.BEST_COMPRESSION);
+        }
+
+        if (level != compressionLevel) {
+            compressionLevel = level;
+            session.getUpstream().getSession().setCompressionLevel(level);
+        }
+    }
+
+    /**
+     * @return the system load relative to the amount of processors, or 0 if not available on this platform
+     */
+    private static double getLoad() {
+        long now = System.currentTimeMillis();
+        if (now - lastLoadSample >= LOAD_SAMPLE_INTERVAL_MILLIS) {
+            // Racy, but at worst the load is sampled a few extra times
+            lastLoadSample = now;
+            load = Math.max(0, OPERATING_SYSTEM.getSystemLoadAverage() / OPERATING_SYSTEM.getAvailableProcessors());
+        }
+        return load;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session;
+
+import com.nukkitx.network.VarInts;
+import com.nukkitx.protocol.bedrock.BedrockPacket;
+import com.nukkitx.protocol.bedrock.BedrockPacketCodec;
+import com.nukkitx.protocol.bedrock.BedrockServerSession;
+import com.nukkitx.protocol.bedrock.packet.AvailableEntityIdentifiersPacket;
+import com.nukkitx.protocol.bedrock.packet.BiomeDefinitionListPacket;
+import com.nukkitx.protocol.bedrock.packet.CreativeContentPacket;
+import com.nukkitx.protocol.bedrock.v431.Bedrock_v431;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.geysermc.connector.network.translators.BiomeTranslator;
+import org.geysermc.connector.network.translators.EntityIdentifierRegistry;
+import org.geysermc.connector.network.translators.item.ItemRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+
+/**
+ * The biome definitions, entity identifiers and creative content sent on login are the same for every player on the
+ * same Bedrock version, and are the largest packets sent on login. They are encoded and compressed into one batch once
+ * per codec, and that batch is sent to every session.
+ */
+final class EncodedLoginPackets {
+    private static final Map<BedrockPacketCodec, byte[]> BATCHES = new ConcurrentHashMap<>();
+
+    private EncodedLoginPackets() {
+    }
+
+    /**
+     * Send the static login packets. Packets queued on the session before this are not flushed first, so anything that
+     * must arrive earlier has to be sent immediately.
+     *
+     * @param compressionLevel the compression level to use if the batch has not been encoded for this codec yet
+     */
+    static void send(BedrockServerSession session, int compressionLevel) {
+        byte[] batch = BATCHES.computeIfAbsent(session.getPacketCodec(), codec -> encode(session, codec, compressionLevel));
+        // Wrapped for every send, as sending releases the buffer
+        session.sendWrapped(Unpooled.wrappedBuffer(batch), true);
+    }
+
+    private static List<BedrockPacket> createPackets(BedrockPacketCodec codec) {
+        BiomeDefinitionListPacket biomeDefinitionListPacket = new BiomeDefinitionListPacket();
+        biomeDefinitionListPacket.setDefinitions(BiomeTranslator.BIOMES);
+
+        AvailableEntityIdentifiersPacket entityPacket = new AvailableEntityIdentifiersPacket();
+        entityPacket.setIdentifiers(EntityIdentifierRegistry.ENTITY_IDENTIFIERS);
+
+        CreativeContentPacket creativePacket = new CreativeContentPacket();
+        if (codec.getProtocolVersion() < Bedrock_v431.V431_CODEC.getProtocolVersion()) {
+            creativePacket.setContents(ItemRegistry.getPre1_16_220CreativeContents());
+        } else {
+            // No additional work required
+            creativePacket.setContents(ItemRegistry.CREATIVE_ITEMS);
+        }
+        return Arrays.asList(biomeDefinitionListPacket, entityPacket, creativePacket);
+    }
+
+    /**
+     * Encode the packets the same way the protocol library batches them: each packet prefixed by its length, all of
+     * them deflated together without a zlib header.
+     *
+     * @param session the session whose encoding state (such as the shield's item ID, which is the same for everyone)
+     *                is used to encode the items
+     */
+    private static byte[] encode(BedrockServerSession session, BedrockPacketCodec codec, int compressionLevel) {
+        ByteBuf uncompressed = ByteBufAllocator.DEFAULT.ioBuffer();
+        ByteBuf packetBuffer = ByteBufAllocator.DEFAULT.ioBuffer();
+        try {
+            for (BedrockPacket packet : createPackets(codec)) {
+                packetBuffer.clear();
+                // Server packets have a sender and client ID of 0, leaving only the packet ID in the header
+                VarInts.writeUnsignedInt(packetBuffer, codec.getId(packet));
+                codec.tryEncode(packetBuffer, packet, session);
+                VarInts.writeUnsignedInt(uncompressed, packetBuffer.readableBytes());
+                uncompressed.writeBytes(packetBuffer);
+            }
+            byte[] input = new byte[uncompressed.readableBytes()];
+            uncompressed.readBytes(input);
+            return deflate(input, compressionLevel);
+        } finally {
+            uncompressed.release();
+            packetBuffer.release();
+        }
+    }
+
+    private static byte[] deflate(byte[] input, int compressionLevel) {
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 4);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
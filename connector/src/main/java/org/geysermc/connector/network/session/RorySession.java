@@ -59,12 +59,11 @@ import com.nukkitx.protocol.bedrock.data.command.CommandPermission;
 import com.nukkitx.protocol.bedrock.data.entity.EntityData;
 import com.nukkitx.protocol.bedrock.data.entity.EntityFlag;
 import com.nukkitx.protocol.bedrock.packet.*;
-import com.nukkitx.protocol.bedrock.v431.Bedrock_v431;
+import io.netty.channel.EventLoop;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
-import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.*;
 import lombok.AccessLevel;
@@ -89,14 +88,13 @@ import org.geysermc.connector.inventory.PlayerInventory;
 import org.geysermc.connector.network.session.auth.AuthData;
 import org.geysermc.connector.network.session.auth.BedrockClientData;
 import org.geysermc.connector.network.session.cache.*;
-import org.geysermc.connector.network.translators.BiomeTranslator;
-import org.geysermc.connector.network.translators.EntityIdentifierRegistry;
 import org.geysermc.connector.network.translators.PacketTranslatorRegistry;
 import org.geysermc.connector.network.translators.chat.MessageTranslator;
 import org.geysermc.connector.network.translators.collision.CollisionManager;
 import org.geysermc.connector.network.translators.inventory.InventoryTranslator;
 import org.geysermc.connector.network.translators.item.ItemRegistry;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
+import org.geysermc.connector.network.translators.world.chunk.ChunkTranslationQueue;
 import org.geysermc.connector.skin.SkinManager;
 import org.geysermc.connector.utils.*;
 import org.geysermc.floodgate.util.BedrockData;
@@ -118,6 +116,19 @@ public class RorySession implements CommandSender {
 
     private final RoryConnector connector;
     private final UpstreamSession upstream;
+    /**
+     * Paces chunk and cosmetic packets sent to the client
+     */
+    private final UpstreamPacketScheduler packetScheduler;
+    /**
+     * Adjusts how much packets to the client are compressed; null if adaptive compression is disabled
+     */
+    private final CompressionPolicy compressionPolicy;
+    /**
+     * The event loop that translates all packets and runs all tasks of this session. Session state should only be changed
+     * from here, so that it doesn't need to be synchronized.
+     */
+    private final EventLoop eventLoop;
     private Client downstream;
     @Setter
     private AuthData authData;
@@ -141,6 +152,7 @@ public class RorySession implements CommandSender {
 
     private AdvancementsCache advancementsCache;
     private BookEditCache bookEditCache;
+    private ChunkBlobCache chunkBlobCache;
     private ChunkCache chunkCache;
     private EntityCache entityCache;
     private EntityEffectCache effectCache;
@@ -150,6 +162,11 @@ public class RorySession implements CommandSender {
     private WindowCache windowCache;
     private final Int2ObjectMap<TeleportCache> teleportMap = new Int2ObjectOpenHashMap<>();
 
+    /**
+     * Translates chunks for this session on the connector's chunk thread pool, in order
+     */
+    private final ChunkTranslationQueue chunkTranslationQueue;
+
     private final PlayerInventory playerInventory;
     @Setter
     private Inventory openInventory;
@@ -185,7 +202,7 @@ public class RorySession implements CommandSender {
     private BlockTranslator blockTranslator;
 
     private final Map<Vector3i, SkullPlayerEntity> skullCache = new ConcurrentHashMap<>();
-    private final Long2ObjectMap<ClientboundMapItemDataPacket> storedMaps = Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>());
+    private final Long2ObjectMap<ClientboundMapItemDataPacket> storedMaps = new Long2ObjectOpenHashMap<>();
 
     /**
      * A map of Vector3i positions to Java entities.
@@ -300,8 +317,13 @@ public class RorySession implements CommandSender {
     @Setter
     private Entity mouseoverEntity;
 
-    @Setter
+    /**
+     * The crafting recipes by their network ID. Initially shared with other sessions on the same server,
+     * see {@link #addCraftingRecipe(int, Recipe)}.
+     */
     private Int2ObjectMap<Recipe> craftingRecipes;
+    @Getter(AccessLevel.NONE)
+    private boolean craftingRecipesShared;
     private final Set<String> unlockedRecipes;
     private final AtomicInteger lastRecipeNetId;
 
@@ -436,19 +458,22 @@ public class RorySession implements CommandSender {
 
     private final Set<UUID> emotes;
 
-    /**
-     * The thread that will run every 50 milliseconds - one Minecraft tick.
-     */
-    private ScheduledFuture<?> tickThread = null;
-
     private MinecraftProtocol protocol;
 
     public RorySession(RoryConnector connector, BedrockServerSession bedrockServerSession) {
         this.connector = connector;
         this.upstream = new UpstreamSession(bedrockServerSession);
+        this.packetScheduler = new UpstreamPacketScheduler(upstream, connector.getConfig().getWorldSendBudget() * 1024);
+        if (connector.getConfig().getBedrock().isAdaptiveCompression()) {
+            this.compressionPolicy = new CompressionPolicy(this, connector.getConfig().getBedrock().getCompressionLevel());
+        } else {
+            this.compressionPolicy = null;
+        }
+        this.eventLoop = connector.getSessionEventLoopGroup().next();
 
         this.advancementsCache = new AdvancementsCache(this);
         this.bookEditCache = new BookEditCache(this);
+        this.chunkBlobCache = new ChunkBlobCache(this);
         this.chunkCache = new ChunkCache(this);
         this.entityCache = new EntityCache(this);
         this.effectCache = new EntityEffectCache();
@@ -457,6 +482,8 @@ public class RorySession implements CommandSender {
         this.worldCache = new WorldCache(this);
         this.windowCache = new WindowCache(this);
 
+        this.chunkTranslationQueue = new ChunkTranslationQueue(this, connector.getChunkThreadPool(), connector.getConfig().getChunkQueueSize());
+
         this.collisionManager = new CollisionManager(this);
 
         this.playerEntity = new SessionPlayerEntity(this);
@@ -505,27 +532,16 @@ public class RorySession implements CommandSender {
         if (ItemRegistry.FURNACE_MINECART_DATA != null) {
             ItemComponentPacket componentPacket = new ItemComponentPacket();
             componentPacket.getItems().add(ItemRegistry.FURNACE_MINECART_DATA);
-            upstream.sendPacket(componentPacket);
+            upstream.sendPacketImmediately(componentPacket);
         }
 
         ChunkUtils.sendEmptyChunks(this, playerEntity.getPosition().toInt(), 0, false);
 
-        BiomeDefinitionListPacket biomeDefinitionListPacket = new BiomeDefinitionListPacket();
-        biomeDefinitionListPacket.setDefinitions(BiomeTranslator.BIOMES);
-        upstream.sendPacket(biomeDefinitionListPacket);
-
-        AvailableEntityIdentifiersPacket entityPacket = new AvailableEntityIdentifiersPacket();
-        entityPacket.setIdentifiers(EntityIdentifierRegistry.ENTITY_IDENTIFIERS);
-        upstream.sendPacket(entityPacket);
-
-        CreativeContentPacket creativePacket = new CreativeContentPacket();
-        if (upstream.getSession().getPacketCodec().getProtocolVersion() < Bedrock_v431.V431_CODEC.getProtocolVersion()) {
-            creativePacket.setContents(ItemRegistry.getPre1_16_220CreativeContents());
-        } else {
-            // No additional work required
-            creativePacket.setContents(ItemRegistry.CREATIVE_ITEMS);
+        // The biome definitions, entity identifiers and creative content are the same for everyone, so they are only
+        // encoded once. They skip the packet queue, so the login packets before them are sent immediately as well
+        if (!upstream.isClosed()) {
+            EncodedLoginPackets.send(upstream.getSession(), connector.getConfig().getBedrock().getCompressionLevel());
         }
-        upstream.sendPacket(creativePacket);
 
         PlayStatusPacket playStatusPacket = new PlayStatusPacket();
         playStatusPacket.setStatus(PlayStatusPacket.Status.PLAYER_SPAWN);
@@ -573,8 +589,8 @@ public class RorySession implements CommandSender {
         }
 
         loggingIn = true;
-        // new thread so clients don't timeout
-        new Thread(() -> {
+        // Logging in blocks, so run it off the event loop so clients don't timeout
+        connector.getGeneralThreadPool().execute(() -> {
             try {
                 if (password != null && !password.isEmpty()) {
                     AuthenticationService authenticationService;
@@ -599,7 +615,7 @@ public class RorySession implements CommandSender {
             } catch (RequestException ex) {
                 ex.printStackTrace();
             }
-        }).start();
+        });
     }
 
     /**
@@ -612,8 +628,8 @@ public class RorySession implements CommandSender {
         }
 
         loggingIn = true;
-        // new thread so clients don't timeout
-        new Thread(() -> {
+        // Logging in blocks, so run it off the event loop so clients don't timeout
+        connector.getGeneralThreadPool().execute(() -> {
             try {
                 MsaAuthenticationService msaAuthenticationService = new MsaAuthenticationService(RoryConnector.OAUTH_CLIENT_ID);
 
@@ -633,7 +649,7 @@ public class RorySession implements CommandSender {
             } catch (RequestException ex) {
                 ex.printStackTrace();
             }
-        }).start();
+        });
     }
 
     /**
@@ -683,7 +699,7 @@ public class RorySession implements CommandSender {
         }
 
         // Start ticking
-        tickThread = connector.getGeneralThreadPool().scheduleAtFixedRate(this::tick, 50, 50, TimeUnit.MILLISECONDS);
+        connector.getSessionTicker().add(this);
 
         downstream = new Client(this.remoteAddress, this.remotePort, protocol, new TcpSessionFactory());
         disableSrvResolving();
@@ -789,21 +805,24 @@ public class RorySession implements CommandSender {
 
             @Override
             public void packetReceived(PacketReceivedEvent event) {
-                if (!closed) {
-                    // Required, or else Floodgate players break with Bukkit chunk caching
-                    if (event.getPacket() instanceof LoginSuccessPacket) {
-                        GameProfile profile = ((LoginSuccessPacket) event.getPacket()).getProfile();
-                        playerEntity.setUsername(profile.getName());
-                        playerEntity.setUuid(profile.getId());
-
-                        // Check if they are not using a linked account
-                        if (remoteAuthType == AuthType.OFFLINE || playerEntity.getUuid().getMostSignificantBits() == 0) {
-                            SkinManager.handleBedrockSkin(playerEntity, clientData);
+                Packet packet = event.getPacket();
+                executeInEventLoop(() -> {
+                    if (!closed) {
+                        // Required, or else Floodgate players break with Bukkit chunk caching
+                        if (packet instanceof LoginSuccessPacket) {
+                            GameProfile profile = ((LoginSuccessPacket) packet).getProfile();
+                            playerEntity.setUsername(profile.getName());
+                            playerEntity.setUuid(profile.getId());
+
+                            // Check if they are not using a linked account
+                            if (remoteAuthType == AuthType.OFFLINE || playerEntity.getUuid().getMostSignificantBits() == 0) {
+                                SkinManager.handleBedrockSkin(playerEntity, clientData);
+                            }
                         }
-                    }
 
-                    PacketTranslatorRegistry.JAVA_TRANSLATOR.translate(event.getPacket().getClass(), event.getPacket(), RorySession.this);
-                }
+                        PacketTranslatorRegistry.JAVA_TRANSLATOR.translate(packet.getClass(), packet, RorySession.this);
+                    }
+                });
             }
 
             @Override
@@ -834,12 +853,15 @@ public class RorySession implements CommandSender {
             }
         }
 
-        if (tickThread != null) {
-            tickThread.cancel(true);
+        chunkTranslationQueue.clear();
+        packetScheduler.clearWorldPackets();
+        if (chunkBlobCache != null) {
+            chunkBlobCache.clear();
         }
 
         this.advancementsCache = null;
         this.bookEditCache = null;
+        this.chunkBlobCache = null;
         this.chunkCache = null;
         this.entityCache = null;
         this.effectCache = null;
@@ -854,7 +876,7 @@ public class RorySession implements CommandSender {
     }
 
     /**
-     * Called every 50 milliseconds - one Minecraft tick.
+     * Called every 50 milliseconds - one Minecraft tick - by the {@link SessionTicker}.
      */
     protected void tick() {
         // Check to see if the player's position needs updating - a position update should be sent once every 3 seconds
@@ -873,6 +895,16 @@ public class RorySession implements CommandSender {
         for (Tickable entity : entityCache.getTickableEntities()) {
             entity.tick(this);
         }
+        entityCache.updateVisibility();
+        // Send entity movement after ticking, as ticking entities may move too
+        entityCache.flushPendingMovements();
+
+        worldCache.getScoreboardUpdater().run();
+
+        packetScheduler.tick();
+        if (compressionPolicy != null) {
+            compressionPolicy.tick();
+        }
     }
 
     public void setAuthenticationData(AuthData authData) {
@@ -928,6 +960,25 @@ public class RorySession implements CommandSender {
         }
     }
 
+    /**
+     * Set the crafting recipes sent by the server. These are shared with other sessions and are not modified.
+     */
+    public void setCraftingRecipes(Int2ObjectMap<Recipe> craftingRecipes) {
+        this.craftingRecipes = craftingRecipes;
+        this.craftingRecipesShared = true;
+    }
+
+    /**
+     * Add a recipe that was only sent to this client. The recipes are copied first if they are still shared.
+     */
+    public void addCraftingRecipe(int netId, Recipe recipe) {
+        if (craftingRecipesShared) {
+            craftingRecipes = new Int2ObjectOpenHashMap<>(craftingRecipes);
+            craftingRecipesShared = false;
+        }
+        craftingRecipes.put(netId, recipe);
+    }
+
     /**
      * Adjusts speed if the player is crawling.
      *
@@ -1063,18 +1114,32 @@ public class RorySession implements CommandSender {
         settings.setServerAuthoritativeBlockBreaking(false);
         startGamePacket.setPlayerMovementSettings(settings);
         
-        upstream.sendPacket(startGamePacket);
+        // Sent immediately so it arrives before the shared login packets, which skip the packet queue
+        upstream.sendPacketImmediately(startGamePacket);
+    }
+
+    /**
+     * Runs a task on this session's event loop, or right away if this is already the event loop.
+     *
+     * @param task the task to run
+     */
+    public void executeInEventLoop(Runnable task) {
+        if (eventLoop.inEventLoop()) {
+            task.run();
+        } else {
+            eventLoop.execute(task);
+        }
     }
 
     /**
      * Adds a new inventory task.
-     * Inventory tasks are executed one at a time, in order.
+     * Inventory tasks are executed one at a time, in order, on this session's event loop.
      *
      * @param task the task to run
      */
     public void addInventoryTask(Runnable task) {
         synchronized (inventoryLock) {
-            inventoryFuture = inventoryFuture.thenRun(task).exceptionally(throwable -> {
+            inventoryFuture = inventoryFuture.thenRunAsync(task, eventLoop).exceptionally(throwable -> {
                 RoryConnector.getInstance().getLogger().error("Error processing inventory task", throwable.getCause());
                 return null;
             });
@@ -1083,7 +1148,7 @@ public class RorySession implements CommandSender {
 
     /**
      * Adds a new inventory task with a delay.
-     * The delay is achieved by scheduling with the Rory general thread pool.
+     * The delay is achieved by scheduling with this session's event loop.
      * Inventory tasks are executed one at a time, in order.
      *
      * @param task the delayed task to run
@@ -1091,7 +1156,7 @@ public class RorySession implements CommandSender {
      */
     public void addInventoryTask(Runnable task, long delayMillis) {
         synchronized (inventoryLock) {
-            Executor delayedExecutor = command -> RoryConnector.getInstance().getGeneralThreadPool().schedule(command, delayMillis, TimeUnit.MILLISECONDS);
+            Executor delayedExecutor = command -> eventLoop.schedule(command, delayMillis, TimeUnit.MILLISECONDS);
             inventoryFuture = inventoryFuture.thenRunAsync(task, delayedExecutor).exceptionally(throwable -> {
                 RoryConnector.getInstance().getLogger().error("Error processing inventory task", throwable.getCause());
                 return null;
@@ -1185,7 +1250,7 @@ public class RorySession implements CommandSender {
      */
     public void sendUpstreamPacket(BedrockPacket packet) {
         if (upstream != null) {
-            upstream.sendPacket(packet);
+            packetScheduler.sendPacket(packet);
         } else {
             connector.getLogger().debug("Tried to send upstream packet " + packet.getClass().getSimpleName() + " but the session was null");
         }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import org.geysermc.connector.RoryConnector;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Ticks every session once every 50 milliseconds - one Minecraft tick.
+ *
+ * Rather than each session scheduling its own task, each event loop of the session event loop group runs one task that
+ * ticks all sessions pinned to it. Sessions are therefore still only ticked from their own event loop.
+ */
+public class SessionTicker {
+    public static final long TICK_MILLIS = 50;
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+
+    private final Map<EventExecutor, Shard> shards = new IdentityHashMap<>();
+
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong overruns = new AtomicLong();
+    private final AtomicLong totalTickNanos = new AtomicLong();
+    private final LongAccumulator maxTickNanos = new LongAccumulator(Math::max, 0);
+
+    public SessionTicker(EventLoopGroup eventLoopGroup) {
+        for (EventExecutor eventLoop : eventLoopGroup) {
+            Shard shard = new Shard();
+            shards.put(eventLoop, shard);
+            eventLoop.scheduleAtFixedRate(shard::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Start ticking a session. It is ticked until it is closed.
+     */
+    public void add(RorySession session) {
+        Shard shard = shards.get(session.getEventLoop());
+        session.executeInEventLoop(() -> shard.sessions.add(session));
+    }
+
+    /**
+     * @return the amount of times any event loop has ticked its sessions
+     */
+    public long getTicks() {
+        return ticks.get();
+    }
+
+    /**
+     * @return the amount of ticks that took longer than a tick should
+     */
+    public long getOverruns() {
+        return overruns.get();
+    }
+
+    public double getAverageTickMillis() {
+        long ticks = this.ticks.get();
+        return ticks == 0 ? 0 : totalTickNanos.get() / (ticks * 1_000_000.0);
+    }
+
+    public double getMaxTickMillis() {
+        return maxTickNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * The sessions of one event loop. Only accessed from that event loop.
+     */
+    private class Shard {
+        private final List<RorySession> sessions = new ArrayList<>();
+
+        private void tick() {
+            if (sessions.isEmpty()) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            Iterator<RorySession> iterator = sessions.iterator();
+            while (iterator.hasNext()) {
+                RorySession session = iterator.next();
+                if (session.isClosed()) {
+                    iterator.remove();
+                    continue;
+                }
+
+                try {
+                    session.tick();
+                } catch (Throwable t) {
+                    RoryConnector.getInstance().getLogger().error("Error ticking session " + session.getName(), t);
+                }
+            }
+
+            long duration = System.nanoTime() - start;
+            ticks.incrementAndGet();
+            totalTickNanos.addAndGet(duration);
+            maxTickNanos.accumulate(duration);
+            if (duration > TICK_NANOS) {
+                overruns.incrementAndGet();
+            }
+        }
+    }
+}
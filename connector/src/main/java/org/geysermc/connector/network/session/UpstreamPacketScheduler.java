@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session;
+
+import com.nukkitx.protocol.bedrock.BedrockPacket;
+import com.nukkitx.protocol.bedrock.packet.*;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Paces the packets sent to a single Bedrock client, so a burst of world data (such as every chunk around the player
+ * on join) does not hold up the packets that make the game feel responsive.
+ *
+ * Packets are sent straight away unless they are chunks or cosmetic, and the budget of the current tick for that
+ * class is used up. Over budget, chunks are queued in order and sent on following ticks, while cosmetic packets
+ * (sounds and particles) are dropped, as they would be out of date by the time they are sent. All other packets, such
+ * as block updates, movement, inventory and entity packets, are never held back; the client relies on their order.
+ */
+public class UpstreamPacketScheduler {
+    /**
+     * World packets that must stay in order relative to each other
+     */
+    private static final Set<Class<? extends BedrockPacket>> WORLD_PACKETS = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * Block changes that a queued chunk would undo if it was sent after them
+     */
+    private static final Set<Class<? extends BedrockPacket>> BLOCK_PACKETS = Collections.newSetFromMap(new IdentityHashMap<>());
+    private static final Set<Class<? extends BedrockPacket>> COSMETIC_PACKETS = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Rough size of a queued packet that isn't a chunk
+     */
+    private static final int SMALL_PACKET_SIZE = 32;
+    private static final int COSMETIC_PACKETS_PER_TICK = 64;
+
+    private static final AtomicLong DEFERRED_WORLD_PACKETS = new AtomicLong();
+    private static final AtomicLong DROPPED_COSMETIC_PACKETS = new AtomicLong();
+
+    static {
+        WORLD_PACKETS.add(LevelChunkPacket.class);
+        WORLD_PACKETS.add(NetworkChunkPublisherUpdatePacket.class);
+
+        BLOCK_PACKETS.add(UpdateBlockPacket.class);
+        BLOCK_PACKETS.add(BlockEntityDataPacket.class);
+
+        COSMETIC_PACKETS.add(LevelSoundEventPacket.class);
+        COSMETIC_PACKETS.add(LevelSoundEvent2Packet.class);
+        COSMETIC_PACKETS.add(PlaySoundPacket.class);
+        COSMETIC_PACKETS.add(SpawnParticleEffectPacket.class);
+    }
+
+    private final UpstreamSession upstream;
+    private final int worldBytesPerTick;
+
+    /*
+     * Everything below is guarded by this object, as chunks are sent from the chunk thread pool.
+     */
+    private final Queue<BedrockPacket> worldQueue = new ArrayDeque<>();
+    /**
+     * Can go below zero if a packet larger than the remaining budget was sent; the difference is taken from the
+     * next tick's budget.
+     */
+    private int worldBytesLeft;
+    private int cosmeticPacketsLeft = COSMETIC_PACKETS_PER_TICK;
+
+    /**
+     * @param worldBytesPerTick how many bytes of world data may be sent per tick, or 0 to send all packets straight away
+     */
+    public UpstreamPacketScheduler(UpstreamSession upstream, int worldBytesPerTick) {
+        this.upstream = upstream;
+        this.worldBytesPerTick = worldBytesPerTick;
+        this.worldBytesLeft = worldBytesPerTick;
+    }
+
+    public void sendPacket(BedrockPacket packet) {
+        if (worldBytesPerTick <= 0) {
+            upstream.sendPacket(packet);
+            return;
+        }
+
+        Class<? extends BedrockPacket> packetClass = packet.getClass();
+        if (WORLD_PACKETS.contains(packetClass)) {
+            synchronized (this) {
+                if (worldQueue.isEmpty() && worldBytesLeft > 0) {
+                    worldBytesLeft -= getWorldPacketSize(packet);
+                    upstream.sendPacket(packet);
+                } else {
+                    worldQueue.add(packet);
+                    DEFERRED_WORLD_PACKETS.incrementAndGet();
+                }
+            }
+        } else if (BLOCK_PACKETS.contains(packetClass)) {
+            synchronized (this) {
+                upstream.sendPacket(packet);
+                if (!worldQueue.isEmpty()) {
+                    // The block may be in a chunk that is still queued, so apply the change again after it
+                    worldQueue.add(packet);
+                }
+            }
+        } else if (COSMETIC_PACKETS.contains(packetClass)) {
+            synchronized (this) {
+                if (cosmeticPacketsLeft <= 0) {
+                    DROPPED_COSMETIC_PACKETS.incrementAndGet();
+                    return;
+                }
+                cosmeticPacketsLeft--;
+            }
+            upstream.sendPacket(packet);
+        } else {
+            upstream.sendPacket(packet);
+        }
+    }
+
+    /**
+     * Refills the budgets and sends as much queued world data as they allow. Should be called once per tick.
+     */
+    public synchronized void tick() {
+        cosmeticPacketsLeft = COSMETIC_PACKETS_PER_TICK;
+        worldBytesLeft = Math.min(worldBytesLeft, 0) + worldBytesPerTick;
+        while (worldBytesLeft > 0 && !worldQueue.isEmpty()) {
+            BedrockPacket packet = worldQueue.poll();
+            worldBytesLeft -= getWorldPacketSize(packet);
+            upstream.sendPacket(packet);
+        }
+    }
+
+    /**
+     * Drops all queued world data, for example because the player changed dimension.
+     */
+    public synchronized void clearWorldPackets() {
+        worldQueue.clear();
+    }
+
+    /**
+     * @return the amount of world packets waiting to be sent
+     */
+    public synchronized int getQueuedWorldPackets() {
+        return worldQueue.size();
+    }
+
+    private static int getWorldPacketSize(BedrockPacket packet) {
+        if (packet instanceof LevelChunkPacket) {
+            return ((LevelChunkPacket) packet).getData().length;
+        }
+        return SMALL_PACKET_SIZE;
+    }
+
+    /**
+     * @return how many world packets had to wait for a later tick, across all sessions
+     */
+    public static long getDeferredWorldPackets() {
+        return DEFERRED_WORLD_PACKETS.get();
+    }
+
+    /**
+     * @return how many sounds and particles were dropped for exceeding the budget, across all sessions
+     */
+    public static long getDroppedCosmeticPackets() {
+        return DROPPED_COSMETIC_PACKETS.get();
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session.cache;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.BitStorage;
+import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
+import com.github.steveice10.mc.protocol.data.game.chunk.palette.GlobalPalette;
+import com.github.steveice10.mc.protocol.data.game.chunk.palette.ListPalette;
+import com.github.steveice10.mc.protocol.data.game.chunk.palette.Palette;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.geysermc.connector.network.translators.world.block.BlockTranslator;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A compact copy of a Java chunk section, holding only what is needed to look up blocks.
+ *
+ * Block data is packed the same way as Java does it, so it can be copied straight from a received section. Sections made
+ * of a single block state hold no block data at all and are shared between every column and session.
+ *
+ * Other sections can be shared between sessions as well, when {@code share-chunk-cache} is enabled. Shared sections are
+ * copied on their first change, so block changes that only one session received stay private to it.
+ */
+public final class CachedChunkSection {
+    private static final int SIZE = 4096;
+    private static final int MIN_PALETTE_BITS_PER_ENTRY = 4;
+    private static final int MAX_PALETTE_BITS_PER_ENTRY = 8;
+    private static final int GLOBAL_BITS_PER_ENTRY = 32 - Integer.numberOfLeadingZeros(BlockTranslator.getJavaBlockStateCount() - 1);
+
+    /**
+     * Shared sections made of a single block state, indexed by that state
+     */
+    private static final AtomicReferenceArray<CachedChunkSection> UNIFORM_SECTIONS = new AtomicReferenceArray<>(BlockTranslator.getJavaBlockStateCount());
+    /**
+     * Sections shared between sessions. As the references are weak, a section is dropped from here once no session
+     * caches it any more.
+     */
+    private static final Interner<CachedChunkSection> SHARED_SECTIONS = Interners.newWeakInterner();
+
+    /**
+     * The Java block states in this section, or null if {@link #data} holds block states directly
+     */
+    private int[] palette;
+    private int paletteSize;
+    /**
+     * Zero if this is a uniform section, in which case {@link #data} is null
+     */
+    private int bitsPerEntry;
+    private long[] data;
+    /**
+     * Whether this section may be held by more than one column, and must not be changed
+     */
+    private boolean shared;
+    private int hashCode;
+
+    private CachedChunkSection(int[] palette, int paletteSize, int bitsPerEntry, long[] data) {
+        this.palette = palette;
+        this.paletteSize = paletteSize;
+        this.bitsPerEntry = bitsPerEntry;
+        this.data = data;
+    }
+
+    /**
+     * @param state the Java block state to fill the section with
+     * @return a shared, immutable section made only of the given state
+     */
+    public static CachedChunkSection uniform(int state) {
+        if (state < 0 || state >= UNIFORM_SECTIONS.length()) {
+            return new CachedChunkSection(new int[]{state}, 1, 0, null);
+        }
+
+        CachedChunkSection section = UNIFORM_SECTIONS.get(state);
+        if (section == null) {
+            section = new CachedChunkSection(new int[]{state}, 1, 0, null);
+            section.shared = true;
+            if (!UNIFORM_SECTIONS.compareAndSet(state, null, section)) {
+                section = UNIFORM_SECTIONS.get(state);
+            }
+        }
+        return section;
+    }
+
+    /**
+     * Copy the block data of a Java chunk section. The Java section is not retained.
+     *
+     * @param chunk the Java section to copy
+     * @param share whether to return the same instance as other sessions that hold identical block data
+     */
+    public static CachedChunkSection of(Chunk chunk, boolean share) {
+        Palette javaPalette = chunk.getPalette();
+        BitStorage storage = chunk.getStorage();
+
+        if (!(javaPalette instanceof GlobalPalette)) {
+            if (javaPalette.size() == 1) {
+                return uniform(javaPalette.idToState(0));
+            }
+            int id = uniformEntry(storage.getData(), storage.getBitsPerEntry());
+            if (id != -1) {
+                // The palette can still list states that were overwritten, such as the air of a new section
+                return uniform(javaPalette.idToState(id));
+            }
+        }
+
+        CachedChunkSection section;
+        if (javaPalette instanceof GlobalPalette) {
+            section = new CachedChunkSection(null, 0, storage.getBitsPerEntry(), storage.getData().clone());
+        } else {
+            int[] palette = new int[1 << storage.getBitsPerEntry()];
+            for (int i = 0; i < javaPalette.size(); i++) {
+                palette[i] = javaPalette.idToState(i);
+            }
+            section = new CachedChunkSection(palette, javaPalette.size(), storage.getBitsPerEntry(), storage.getData().clone());
+        }
+
+        if (!share) {
+            return section;
+        }
+        section.shared = true;
+        section.hashCode = section.computeHashCode();
+        return SHARED_SECTIONS.intern(section);
+    }
+
+    /**
+     * @param index the block index, in YZX order
+     * @return the Java block state at that index
+     */
+    public int get(int index) {
+        if (bitsPerEntry == 0) {
+            return palette[0];
+        }
+
+        int id = getEntry(data, bitsPerEntry, index);
+        if (palette == null) {
+            return id;
+        }
+        return id < paletteSize ? palette[id] : BlockTranslator.JAVA_AIR_ID;
+    }
+
+    /**
+     * Set the block state at the given index. Shared sections are never modified, so the caller must store the
+     * returned section in place of this one.
+     *
+     * @param index the block index, in YZX order
+     * @param state the Java block state to set
+     * @return the section that now holds the change
+     */
+    public CachedChunkSection set(int index, int state) {
+        if (bitsPerEntry == 0) {
+            if (palette[0] == state) {
+                return this;
+            }
+
+            int[] newPalette = new int[1 << MIN_PALETTE_BITS_PER_ENTRY];
+            newPalette[0] = palette[0];
+            newPalette[1] = state;
+            CachedChunkSection section = new CachedChunkSection(newPalette, 2, MIN_PALETTE_BITS_PER_ENTRY,
+                    new long[dataLength(MIN_PALETTE_BITS_PER_ENTRY)]);
+            setEntry(section.data, MIN_PALETTE_BITS_PER_ENTRY, index, 1);
+            return section;
+        }
+
+        if (shared) {
+            if (get(index) == state) {
+                return this;
+            }
+            return copy().set(index, state);
+        }
+
+        if (palette == null) {
+            setEntry(data, bitsPerEntry, index, state);
+            return this;
+        }
+
+        int id = -1;
+        for (int i = 0; i < paletteSize; i++) {
+            if (palette[i] == state) {
+                id = i;
+                break;
+            }
+        }
+
+        if (id == -1) {
+            if (paletteSize == palette.length) {
+                resize();
+                if (palette == null) {
+                    setEntry(data, bitsPerEntry, index, state);
+                    return this;
+                }
+            }
+            id = paletteSize++;
+            palette[id] = state;
+        }
+
+        setEntry(data, bitsPerEntry, index, id);
+        return this;
+    }
+
+    /**
+     * @return a private copy of this section that can be changed
+     */
+    private CachedChunkSection copy() {
+        return new CachedChunkSection(palette != null ? palette.clone() : null, paletteSize, bitsPerEntry, data.clone());
+    }
+
+    /**
+     * Rebuild a Java chunk section from this one, for when the section needs to be translated again. The block data is
+     * copied rather than set block by block, so the rebuilt section usually translates to the same bytes as the section
+     * it was cached from.
+     */
+    public Chunk toChunk() {
+        if (bitsPerEntry == 0) {
+            ListPalette javaPalette = new ListPalette(MIN_PALETTE_BITS_PER_ENTRY);
+            long id = javaPalette.stateToId(palette[0]);
+            long[] javaData = new long[dataLength(MIN_PALETTE_BITS_PER_ENTRY)];
+            Arrays.fill(javaData, id * 0x1111111111111111L); // Every 4-bit entry set to the ID
+            return new Chunk(palette[0] == BlockTranslator.JAVA_AIR_ID ? 0 : SIZE, javaPalette,
+                    new BitStorage(MIN_PALETTE_BITS_PER_ENTRY, SIZE, javaData));
+        }
+
+        if (palette == null) {
+            return new Chunk(countBlocks(BlockTranslator.JAVA_AIR_ID), new GlobalPalette(),
+                    new BitStorage(bitsPerEntry, SIZE, data.clone()));
+        }
+
+        // A new Java palette may already hold air, in which case the IDs of this palette are shifted
+        ListPalette javaPalette = new ListPalette(bitsPerEntry);
+        int[] javaIds = new int[paletteSize];
+        boolean remap = false;
+        int airId = -1;
+        for (int i = 0; i < paletteSize; i++) {
+            javaIds[i] = javaPalette.stateToId(palette[i]);
+            if (javaIds[i] == -1) {
+                // Doesn't fit alongside air, or the palette received from the server listed a state twice
+                return rebuildChunk();
+            }
+            remap |= javaIds[i] != i;
+            if (palette[i] == BlockTranslator.JAVA_AIR_ID && airId == -1) {
+                airId = i;
+            }
+        }
+
+        long[] javaData = data.clone();
+        if (remap) {
+            for (int index = 0; index < SIZE; index++) {
+                int id = getEntry(data, bitsPerEntry, index);
+                setEntry(javaData, bitsPerEntry, index, id < paletteSize ? javaIds[id] : 0);
+            }
+        }
+        return new Chunk(airId == -1 ? SIZE : countBlocks(airId), javaPalette, new BitStorage(bitsPerEntry, SIZE, javaData));
+    }
+
+    /**
+     * @param airId the entry of air in the block data
+     * @return how many entries of the block data aren't air
+     */
+    private int countBlocks(int airId) {
+        int blockCount = SIZE;
+        for (int index = 0; index < SIZE; index++) {
+            if (getEntry(data, bitsPerEntry, index) == airId) {
+                blockCount--;
+            }
+        }
+        return blockCount;
+    }
+
+    private Chunk rebuildChunk() {
+        Chunk chunk = new Chunk();
+        for (int index = 0; index < SIZE; index++) {
+            int state = get(index);
+            if (state != BlockTranslator.JAVA_AIR_ID) {
+                chunk.set(index & 0xF, (index >> 8) & 0xF, (index >> 4) & 0xF, state);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * @return an estimate of how much memory this section takes up, in bytes
+     */
+    public long getMemoryUsage() {
+        if (bitsPerEntry == 0) {
+            return 0; // Shared between all sessions
+        }
+        return 32 + (palette != null ? 16 + palette.length * 4L : 0) + 16 + data.length * 8L;
+    }
+
+    /**
+     * Grow the palette to fit one more state, switching to global block states once it has outgrown the largest palette.
+     */
+    private void resize() {
+        int newBitsPerEntry = bitsPerEntry + 1;
+        boolean global = newBitsPerEntry > MAX_PALETTE_BITS_PER_ENTRY;
+        if (global) {
+            newBitsPerEntry = GLOBAL_BITS_PER_ENTRY;
+        }
+
+        long[] newData = new long[dataLength(newBitsPerEntry)];
+        for (int index = 0; index < SIZE; index++) {
+            int id = getEntry(data, bitsPerEntry, index);
+            setEntry(newData, newBitsPerEntry, index, global ? palette[id] : id);
+        }
+
+        if (global) {
+            palette = null;
+            paletteSize = 0;
+        } else {
+            int[] newPalette = new int[1 << newBitsPerEntry];
+            System.arraycopy(palette, 0, newPalette, 0, paletteSize);
+            palette = newPalette;
+        }
+        bitsPerEntry = newBitsPerEntry;
+        data = newData;
+    }
+
+    /**
+     * Only shared sections are compared by content, as that is all the interner needs.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CachedChunkSection)) {
+            return false;
+        }
+        CachedChunkSection that = (CachedChunkSection) o;
+        if (!shared || !that.shared || hashCode != that.hashCode || bitsPerEntry != that.bitsPerEntry || paletteSize != that.paletteSize) {
+            return false;
+        }
+        for (int i = 0; i < paletteSize; i++) {
+            if (palette[i] != that.palette[i]) {
+                return false;
+            }
+        }
+        return Arrays.equals(data, that.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return shared ? hashCode : System.identityHashCode(this);
+    }
+
+    private int computeHashCode() {
+        int result = 31 * bitsPerEntry + paletteSize;
+        for (int i = 0; i < paletteSize; i++) {
+            result = 31 * result + palette[i];
+        }
+        return 31 * result + Arrays.hashCode(data);
+    }
+
+    /**
+     * @return the entry every block of the data is set to, or -1 if the blocks differ
+     */
+    private static int uniformEntry(long[] data, int bitsPerEntry) {
+        for (long value : data) {
+            if (value != data[0]) {
+                return -1;
+            }
+        }
+        int id = getEntry(data, bitsPerEntry, 0);
+        for (int index = 1; index < 64 / bitsPerEntry; index++) {
+            if (getEntry(data, bitsPerEntry, index) != id) {
+                return -1;
+            }
+        }
+        return id;
+    }
+
+    private static int dataLength(int bitsPerEntry) {
+        int valuesPerLong = 64 / bitsPerEntry;
+        return (SIZE + valuesPerLong - 1) / valuesPerLong;
+    }
+
+    /**
+     * Entries never span two longs; any bits left over at the end of a long are padding.
+     */
+    private static int getEntry(long[] data, int bitsPerEntry, int index) {
+        int valuesPerLong = 64 / bitsPerEntry;
+        int cellIndex = index / valuesPerLong;
+        int bitIndex = (index - cellIndex * valuesPerLong) * bitsPerEntry;
+        return (int) ((data[cellIndex] >>> bitIndex) & ((1L << bitsPerEntry) - 1L));
+    }
+
+    private static void setEntry(long[] data, int bitsPerEntry, int index, int value) {
+        int valuesPerLong = 64 / bitsPerEntry;
+        int cellIndex = index / valuesPerLong;
+        int bitIndex = (index - cellIndex * valuesPerLong) * bitsPerEntry;
+        long mask = (1L << bitsPerEntry) - 1L;
+        data[cellIndex] = (data[cellIndex] & ~(mask << bitIndex)) | ((value & mask) << bitIndex);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session.cache;
+
+import com.nukkitx.protocol.bedrock.packet.ClientCacheBlobStatusPacket;
+import com.nukkitx.protocol.bedrock.packet.ClientCacheMissResponsePacket;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import lombok.Getter;
+import lombok.Setter;
+import org.geysermc.connector.network.session.RorySession;
+import org.geysermc.connector.utils.XXHash64;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the chunk blobs that have been sent to a Bedrock client that supports the client-side blob cache.
+ *
+ * When enabled, chunk sections and biome data are sent as xxHash64 blob IDs. The client then replies with
+ * which blobs it already has (acks) and which it is missing (naks); only the missing blobs are then sent.
+ */
+public class ChunkBlobCache {
+    /**
+     * The most blob data kept for a client that hasn't responded yet, in bytes
+     */
+    private static final long MAX_PENDING_BYTES = 16 * 1024 * 1024;
+    /**
+     * How long a client has to respond to a blob ID before the blob is dropped
+     */
+    private static final long PENDING_BLOB_TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+
+    private final RorySession session;
+
+    /**
+     * If the client told us it supports the blob cache, and the config allows us to use it
+     */
+    @Getter
+    @Setter
+    private boolean enabled = false;
+
+    /**
+     * Blobs that have been referenced in a chunk packet, but the client has not responded to yet, oldest first.
+     * Blobs are added from chunk threads, so this is only accessed while synchronized on this cache.
+     */
+    private final Long2ObjectLinkedOpenHashMap<PendingBlob> pendingBlobs = new Long2ObjectLinkedOpenHashMap<>();
+    private long pendingBytes;
+
+    public ChunkBlobCache(RorySession session) {
+        this.session = session;
+    }
+
+    /**
+     * Store a blob until the client reports whether it has it cached.
+     *
+     * @param blob the serialized blob
+     * @return the blob ID to send in place of the blob
+     */
+    public long addBlob(byte[] blob) {
+        long blobId = XXHash64.hash(blob);
+        long now = System.nanoTime();
+        synchronized (this) {
+            PendingBlob previous = pendingBlobs.putAndMoveToLast(blobId, new PendingBlob(blob, now));
+            if (previous != null) {
+                pendingBytes -= previous.blob.length;
+            }
+            pendingBytes += blob.length;
+
+            // Drop blobs the client never responded to, and the oldest blobs if too many are waiting
+            while (!pendingBlobs.isEmpty()) {
+                PendingBlob oldest = pendingBlobs.get(pendingBlobs.firstLongKey());
+                if (pendingBytes <= MAX_PENDING_BYTES && now - oldest.time <= PENDING_BLOB_TIMEOUT) {
+                    break;
+                }
+                pendingBlobs.removeFirst();
+                pendingBytes -= oldest.blob.length;
+            }
+        }
+        return blobId;
+    }
+
+    /**
+     * Process the client's response to blob IDs sent in chunk packets, sending any blobs it is missing.
+     *
+     * @param packet the blob status packet sent by the client
+     */
+    public void handleBlobStatus(ClientCacheBlobStatusPacket packet) {
+        ClientCacheMissResponsePacket missResponsePacket = new ClientCacheMissResponsePacket();
+        synchronized (this) {
+            for (long blobId : packet.getAcks()) {
+                removeBlob(blobId);
+            }
+
+            for (long blobId : packet.getNaks()) {
+                byte[] blob = removeBlob(blobId);
+                if (blob != null) {
+                    missResponsePacket.getBlobs().put(blobId, blob);
+                } else {
+                    session.getConnector().getLogger().debug("Client requested unknown chunk blob " + blobId);
+                }
+            }
+        }
+
+        if (!missResponsePacket.getBlobs().isEmpty()) {
+            session.sendUpstreamPacket(missResponsePacket);
+        }
+    }
+
+    /**
+     * Forget all blobs the client hasn't responded to. Should be called when the chunks they belong to are no
+     * longer needed, for example after changing dimension.
+     */
+    public synchronized void clear() {
+        pendingBlobs.clear();
+        pendingBytes = 0;
+    }
+
+    private byte[] removeBlob(long blobId) {
+        PendingBlob pendingBlob = pendingBlobs.remove(blobId);
+        if (pendingBlob == null) {
+            return null;
+        }
+        pendingBytes -= pendingBlob.blob.length;
+        return pendingBlob.blob;
+    }
+
+    private static final class PendingBlob {
+        private final byte[] blob;
+        /**
+         * When the blob was last referenced, from {@link System#nanoTime()}
+         */
+        private final long time;
+
+        private PendingBlob(byte[] blob, long time) {
+            this.blob = blob;
+            this.time = time;
+        }
+    }
+}
@@ -27,54 +27,184 @@ package org.geysermc.connector.network.session.cache;
 
 import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
 import com.github.steveice10.mc.protocol.data.game.chunk.Column;
+import com.github.steveice10.opennbt.tag.builtin.*;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import org.geysermc.connector.network.session.RorySession;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
 import org.geysermc.connector.utils.MathUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 public class ChunkCache {
     private static final int MINIMUM_WORLD_HEIGHT = 0;
+    private static final byte[] EMPTY_BLOCK_ENTITIES = new byte[0];
 
     private final boolean cache;
+    /**
+     * Whether sections with identical block data are shared with other sessions
+     */
+    private final boolean share;
 
-    private final Long2ObjectMap<Column> chunks;
+    private final Long2ObjectMap<CachedColumn> chunks;
 
     public ChunkCache(RorySession session) {
-        if (session.getConnector().getWorldManager().hasOwnChunkCache()) {
-            this.cache = false; // To prevent Spigot from initializing
-        } else {
-            this.cache = session.getConnector().getConfig().isCacheChunks();
-        }
+        // Spigot has its own chunk cache, so we don't initialize ours
+        this(!session.getConnector().getWorldManager().hasOwnChunkCache() && session.getConnector().getConfig().isCacheChunks(),
+                session.getConnector().getConfig().isShareChunkCache());
+    }
+
+    ChunkCache(boolean cache, boolean share) {
+        this.cache = cache;
+        this.share = share;
         chunks = cache ? new Long2ObjectOpenHashMap<>() : null;
     }
 
+    /**
+     * Store the block data of a column received from the Java server. The column itself is not retained.
+     *
+     * @return the column to translate, with any sections missing from a partial update filled in from the cache, or null
+     * if nothing changed. Block entities of the missing sections that were already translated are not included; see
+     * {@link #getTranslatedBlockEntities(int, int)}.
+     */
     public Column addToCache(Column chunk) {
         if (!cache) {
             return chunk;
         }
 
         long chunkPosition = MathUtils.chunkPositionToLong(chunk.getX(), chunk.getZ());
-        Column existingChunk;
+        Chunk[] sections = chunk.getChunks();
+        CachedColumn existingChunk;
         if (chunk.getBiomeData() == null // Only consider merging columns if the new chunk isn't a full chunk
             && (existingChunk = chunks.getOrDefault(chunkPosition, null)) != null) { // Column is already present in cache, we can merge with existing
             boolean changed = false;
-            for (int i = 0; i < chunk.getChunks().length; i++) { // The chunks member is final, so chunk.getChunks() will probably be inlined and then completely optimized away
-                if (chunk.getChunks()[i] != null) {
-                    existingChunk.getChunks()[i] = chunk.getChunks()[i];
+            for (int i = 0; i < sections.length && i < existingChunk.sections.length; i++) {
+                if (sections[i] != null) {
+                    existingChunk.sections[i] = CachedChunkSection.of(sections[i], share);
+                    // The block entities of this section are the ones in this update now
+                    existingChunk.bedrockBlockEntities[i] = null;
                     changed = true;
                 }
             }
-            return changed ? existingChunk : null;
+            if (!changed) {
+                return null;
+            }
+
+            // Java block entities of the sections that were left out, which have not been stored translated yet, are
+            // translated along with this update
+            CompoundTag[] blockEntities = mergeBlockEntities(existingChunk.javaBlockEntities, chunk.getTileEntities(), sections);
+            existingChunk.javaBlockEntities = blockEntities;
+
+            // The whole column is sent to Bedrock again, so fill in the sections this update left out. The rebuilt
+            // sections keep the packed data of the cache, so they are usually found in the translated section cache.
+            for (int i = 0; i < sections.length && i < existingChunk.sections.length; i++) {
+                if (sections[i] == null && existingChunk.sections[i] != null) {
+                    sections[i] = existingChunk.sections[i].toChunk();
+                }
+            }
+            return new Column(chunk.getX(), chunk.getZ(), sections, blockEntities, chunk.getHeightMaps(), null);
         } else {
-            chunks.put(chunkPosition, chunk);
+            CachedChunkSection[] cachedSections = new CachedChunkSection[sections.length];
+            for (int i = 0; i < sections.length; i++) {
+                if (sections[i] != null) {
+                    cachedSections[i] = CachedChunkSection.of(sections[i], share);
+                }
+            }
+            chunks.put(chunkPosition, new CachedColumn(cachedSections, chunk.getTileEntities(), chunk.getBiomeData()));
             return chunk;
         }
     }
 
-    public Column getChunk(int chunkX, int chunkZ)  {
-        long chunkPosition = MathUtils.chunkPositionToLong(chunkX, chunkZ);
-        return chunks.getOrDefault(chunkPosition, null);
+    /**
+     * @return the encoded Bedrock block entities of the column that were stored translated, which are not part of the
+     * column last returned by {@link #addToCache(Column)}
+     */
+    public byte[] getTranslatedBlockEntities(int chunkX, int chunkZ) {
+        if (!cache) {
+            return EMPTY_BLOCK_ENTITIES;
+        }
+
+        CachedColumn column = chunks.getOrDefault(MathUtils.chunkPositionToLong(chunkX, chunkZ), null);
+        if (column == null) {
+            return EMPTY_BLOCK_ENTITIES;
+        }
+
+        int length = 0;
+        for (byte[] blockEntities : column.bedrockBlockEntities) {
+            if (blockEntities != null) {
+                length += blockEntities.length;
+            }
+        }
+        if (length == 0) {
+            return EMPTY_BLOCK_ENTITIES;
+        }
+
+        byte[] translated = new byte[length];
+        int offset = 0;
+        for (byte[] blockEntities : column.bedrockBlockEntities) {
+            if (blockEntities != null) {
+                System.arraycopy(blockEntities, 0, translated, offset, blockEntities.length);
+                offset += blockEntities.length;
+            }
+        }
+        return translated;
+    }
+
+    /**
+     * Store the Bedrock block entities translated from a column, so its Java block entities are no longer kept.
+     *
+     * @param translated the Java block entities of the column that was translated
+     * @param sectionBlockEntities the encoded Bedrock block entities of each section, translated from those Java block
+     *                             entities
+     * @param untranslated the Java block entities that must be translated every time the column is sent
+     */
+    public void storeTranslatedBlockEntities(int chunkX, int chunkZ, CompoundTag[] translated, byte[][] sectionBlockEntities,
+                                             CompoundTag[] untranslated) {
+        if (!cache) {
+            return;
+        }
+
+        CachedColumn column = chunks.getOrDefault(MathUtils.chunkPositionToLong(chunkX, chunkZ), null);
+        if (column == null || column.javaBlockEntities != translated) {
+            // Unloaded or updated since; a newer version of the column is translated and stored instead
+            return;
+        }
+
+        column.javaBlockEntities = untranslated;
+        for (int i = 0; i < sectionBlockEntities.length && i < column.bedrockBlockEntities.length; i++) {
+            if (sectionBlockEntities[i] != null) {
+                column.bedrockBlockEntities[i] = sectionBlockEntities[i];
+            }
+        }
+    }
+
+    /**
+     * @return the section at the given section coordinates, or null if it is not cached
+     */
+    public CachedChunkSection getSection(int chunkX, int sectionY, int chunkZ) {
+        if (!cache) {
+            return null;
+        }
+
+        CachedColumn column = chunks.getOrDefault(MathUtils.chunkPositionToLong(chunkX, chunkZ), null);
+        if (column == null || sectionY < 0 || sectionY >= column.sections.length) {
+            return null;
+        }
+        return column.sections[sectionY];
+    }
+
+    /**
+     * @return the Java biome data of the given column, or null if it is not cached or no biome data was received for it
+     */
+    public int[] getBiomeData(int chunkX, int chunkZ) {
+        if (!cache) {
+            return null;
+        }
+
+        CachedColumn column = chunks.getOrDefault(MathUtils.chunkPositionToLong(chunkX, chunkZ), null);
+        return column != null ? column.biomeData : null;
     }
 
     public void updateBlock(int x, int y, int z, int block) {
@@ -82,19 +212,19 @@ public class ChunkCache {
             return;
         }
 
-        Column column = this.getChunk(x >> 4, z >> 4);
+        CachedColumn column = chunks.getOrDefault(MathUtils.chunkPositionToLong(x >> 4, z >> 4), null);
         if (column == null) {
             return;
         }
 
-        if (y < MINIMUM_WORLD_HEIGHT || (y >> 4) > column.getChunks().length - 1) {
+        if (y < MINIMUM_WORLD_HEIGHT || (y >> 4) > column.sections.length - 1) {
             // Y likely goes above or below the height limit of this world
             return;
         }
 
-        Chunk chunk = column.getChunks()[y >> 4];
-        if (chunk != null) {
-            chunk.set(x & 0xF, y & 0xF, z & 0xF, block);
+        CachedChunkSection section = column.sections[y >> 4];
+        if (section != null) {
+            column.sections[y >> 4] = section.set(blockIndex(x, y, z), block);
         }
     }
 
@@ -103,19 +233,19 @@ public class ChunkCache {
             return BlockTranslator.JAVA_AIR_ID;
         }
 
-        Column column = this.getChunk(x >> 4, z >> 4);
+        CachedColumn column = chunks.getOrDefault(MathUtils.chunkPositionToLong(x >> 4, z >> 4), null);
         if (column == null) {
             return BlockTranslator.JAVA_AIR_ID;
         }
 
-        if (y < MINIMUM_WORLD_HEIGHT || (y >> 4) > column.getChunks().length - 1) {
+        if (y < MINIMUM_WORLD_HEIGHT || (y >> 4) > column.sections.length - 1) {
             // Y likely goes above or below the height limit of this world
             return BlockTranslator.JAVA_AIR_ID;
         }
 
-        Chunk chunk = column.getChunks()[y >> 4];
-        if (chunk != null) {
-            return chunk.get(x & 0xF, y & 0xF, z & 0xF);
+        CachedChunkSection section = column.sections[y >> 4];
+        if (section != null) {
+            return section.get(blockIndex(x, y, z));
         }
 
         return BlockTranslator.JAVA_AIR_ID;
@@ -129,4 +259,115 @@ public class ChunkCache {
         long chunkPosition = MathUtils.chunkPositionToLong(chunkX, chunkZ);
         chunks.remove(chunkPosition);
     }
+
+    /**
+     * @return an estimate of how much memory the cached block data takes up, in bytes
+     */
+    public long getMemoryUsage() {
+        if (!cache) {
+            return 0;
+        }
+
+        long size = 0;
+        for (CachedColumn column : chunks.values()) {
+            size += column.getMemoryUsage();
+        }
+        return size;
+    }
+
+    /**
+     * @param cached the Java block entities of the cached column that are not stored translated
+     * @param received the block entities of a partial update
+     * @param receivedSections the sections of the partial update
+     * @return the cached block entities outside the updated sections, followed by the received block entities
+     */
+    private static CompoundTag[] mergeBlockEntities(CompoundTag[] cached, CompoundTag[] received, Chunk[] receivedSections) {
+        List<CompoundTag> blockEntities = new ArrayList<>(cached.length + received.length);
+        for (CompoundTag tag : cached) {
+            int sectionY = (int) tag.get("y").getValue() >> 4;
+            if (sectionY < 0 || sectionY >= receivedSections.length || receivedSections[sectionY] == null) {
+                blockEntities.add(tag);
+            }
+        }
+        Collections.addAll(blockEntities, received);
+        return blockEntities.toArray(new CompoundTag[0]);
+    }
+
+    /**
+     * @return the index of a block in a section, in YZX order
+     */
+    private static int blockIndex(int x, int y, int z) {
+        return ((y & 0xF) << 8) | ((z & 0xF) << 4) | (x & 0xF);
+    }
+
+    /**
+     * @return a rough estimate of how much memory a Java NBT tag takes up, in bytes
+     */
+    private static long estimateSize(Tag tag) {
+        long size = 16 + 40 + tag.getName().length(); // The tag and its name
+        if (tag instanceof CompoundTag) {
+            size += 64; // The map
+            for (Tag child : ((CompoundTag) tag).getValue().values()) {
+                size += 32 + estimateSize(child);
+            }
+        } else if (tag instanceof ListTag) {
+            size += 40; // The list
+            for (Tag child : ((ListTag) tag).getValue()) {
+                size += 4 + estimateSize(child);
+            }
+        } else if (tag instanceof StringTag) {
+            size += 40 + ((StringTag) tag).getValue().length();
+        } else if (tag instanceof ByteArrayTag) {
+            size += 16 + ((ByteArrayTag) tag).getValue().length;
+        } else if (tag instanceof IntArrayTag) {
+            size += 16 + ((IntArrayTag) tag).getValue().length * 4L;
+        } else if (tag instanceof LongArrayTag) {
+            size += 16 + ((LongArrayTag) tag).getValue().length * 8L;
+        } else {
+            size += 16; // The boxed number
+        }
+        return size;
+    }
+
+    private static final class CachedColumn {
+        private final CachedChunkSection[] sections;
+        /**
+         * Java block entities that are not stored translated yet. They are needed to send the whole column again after
+         * a partial update, which only carries the block entities of the sections it updates.
+         */
+        private CompoundTag[] javaBlockEntities;
+        /**
+         * The encoded Bedrock block entities of each section, translated from Java block entities that are no longer kept
+         */
+        private final byte[][] bedrockBlockEntities;
+        private final int[] biomeData;
+
+        private CachedColumn(CachedChunkSection[] sections, CompoundTag[] javaBlockEntities, int[] biomeData) {
+            this.sections = sections;
+            this.javaBlockEntities = javaBlockEntities;
+            this.bedrockBlockEntities = new byte[sections.length][];
+            this.biomeData = biomeData;
+        }
+
+        private long getMemoryUsage() {
+            long size = 48 + 16 + sections.length * 4L + 16 + javaBlockEntities.length * 4L + 16 + bedrockBlockEntities.length * 4L;
+            for (CachedChunkSection section : sections) {
+                if (section != null) {
+                    size += section.getMemoryUsage();
+                }
+            }
+            for (CompoundTag tag : javaBlockEntities) {
+                size += estimateSize(tag);
+            }
+            for (byte[] blockEntities : bedrockBlockEntities) {
+                if (blockEntities != null) {
+                    size += 16 + blockEntities.length;
+                }
+            }
+            if (biomeData != null) {
+                size += 16 + biomeData.length * 4L;
+            }
+            return size;
+        }
+    }
 }
@@ -25,11 +25,14 @@
 
 package org.geysermc.connector.network.session.cache;
 
+import com.nukkitx.math.vector.Vector3f;
+import com.nukkitx.protocol.bedrock.data.entity.EntityFlag;
 import it.unimi.dsi.fastutil.longs.*;
-import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.*;
 import lombok.Getter;
-import org.geysermc.connector.entity.Tickable;
-import org.geysermc.connector.entity.Entity;
+import org.geysermc.connector.entity.*;
+import org.geysermc.connector.entity.living.ArmorStandEntity;
+import org.geysermc.connector.entity.living.monster.EnderDragonEntity;
 import org.geysermc.connector.entity.player.PlayerEntity;
 import org.geysermc.connector.network.session.RorySession;
 
@@ -41,29 +44,107 @@ import java.util.concurrent.atomic.AtomicLong;
  * for that player (e.g. seeing vanished players from /vanish)
  */
 public class EntityCache {
+    /**
+     * How often, in ticks, entities are shown or hidden based on their distance
+     */
+    private static final int VISIBILITY_UPDATE_INTERVAL = 10;
+    /**
+     * How much further than the view distance an entity may move before it is hidden, so entities on the edge
+     * don't keep being spawned and removed
+     */
+    private static final int HIDE_DISTANCE_MARGIN = 8;
+    /**
+     * How soon, in ticks, newly spawned items and orbs are shown when they may be merged
+     */
+    private static final int MERGE_SPAWN_DELAY = 2;
+
     private final RorySession session;
 
+    /*
+     * None of these are synchronized, as they are only accessed from the session's event loop.
+     */
     @Getter
-    private Long2ObjectMap<Entity> entities = Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>());
+    private Long2ObjectMap<Entity> entities = new Long2ObjectOpenHashMap<>();
+    /**
+     * All entities that must be ticked, in the order they were spawned.
+     */
+    private final Set<Tickable> tickableEntities = new ReferenceLinkedOpenHashSet<>();
     /**
-     * A list of all entities that must be ticked.
+     * Entities that have moved since the last tick and still need their movement sent to the client.
      */
-    private final List<Tickable> tickableEntities = Collections.synchronizedList(new ArrayList<>());
-    private Long2LongMap entityIdTranslations = Long2LongMaps.synchronize(new Long2LongOpenHashMap());
-    private Map<UUID, PlayerEntity> playerEntities = Collections.synchronizedMap(new HashMap<>());
-    private Map<UUID, BossBar> bossBars = Collections.synchronizedMap(new HashMap<>());
-    private final Long2LongMap cachedPlayerEntityLinks = Long2LongMaps.synchronize(new Long2LongOpenHashMap());
+    private final List<Entity> pendingMovements = new ArrayList<>();
+    private Long2ObjectMap<Entity> javaIdEntities = new Long2ObjectOpenHashMap<>();
+    /**
+     * All entities, indexed by their exact class.
+     */
+    private Map<Class<? extends Entity>, Set<Entity>> entitiesByClass = new Reference2ObjectOpenHashMap<>();
+    private Map<UUID, PlayerEntity> playerEntities = new Object2ObjectOpenHashMap<>();
+    private Map<UUID, BossBar> bossBars = new Object2ObjectOpenHashMap<>();
+    private final Long2LongMap cachedPlayerEntityLinks = new Long2LongOpenHashMap();
+
+    /**
+     * Entities that are only spawned on the client while they are close enough and within the entity budget.
+     * Hidden entities stay in this cache, but are not valid; updates for them are not translated.
+     * Null if entities are always shown.
+     */
+    private final Set<Entity> cullableEntities;
+    private final float showDistanceSquared;
+    private final float hideDistanceSquared;
+    private final int maxVisibleEntities;
+    /**
+     * If identical items and experience orbs close to each other are shown as one entity
+     */
+    private final boolean mergeEntities;
+    /**
+     * The amount of cullable entities currently spawned on the client
+     */
+    private int visibleCullableEntities;
+    private int ticksUntilVisibilityUpdate = VISIBILITY_UPDATE_INTERVAL;
 
     @Getter
     private final AtomicLong nextEntityId = new AtomicLong(2L);
 
     public EntityCache(RorySession session) {
+        this(session, session.getConnector().getConfig().getEntityViewDistance(),
+                session.getConnector().getConfig().getMaxVisibleEntities(), session.getConnector().getConfig().isMergeItemEntities());
+    }
+
+    EntityCache(RorySession session, int viewDistance, int maxVisibleEntities, boolean mergeEntities) {
         this.session = session;
         cachedPlayerEntityLinks.defaultReturnValue(-1L);
+
+        this.mergeEntities = mergeEntities;
+        if (viewDistance > 0 || maxVisibleEntities > 0 || mergeEntities) {
+            this.cullableEntities = new ReferenceOpenHashSet<>();
+        } else {
+            this.cullableEntities = null;
+        }
+        if (viewDistance > 0) {
+            this.showDistanceSquared = viewDistance * viewDistance;
+            this.hideDistanceSquared = (viewDistance + HIDE_DISTANCE_MARGIN) * (viewDistance + HIDE_DISTANCE_MARGIN);
+        } else {
+            this.showDistanceSquared = Float.MAX_VALUE;
+            this.hideDistanceSquared = Float.MAX_VALUE;
+        }
+        this.maxVisibleEntities = maxVisibleEntities > 0 ? maxVisibleEntities : Integer.MAX_VALUE;
     }
 
     public void spawnEntity(Entity entity) {
         if (cacheEntity(entity)) {
+            if (cullableEntities != null && isCullable(entity)) {
+                cullableEntities.add(entity);
+                if (mergeEntities && isMergeable(entity)) {
+                    // Whether it is shown or merged into another entity is decided on the next update
+                    ticksUntilVisibilityUpdate = Math.min(ticksUntilVisibilityUpdate, MERGE_SPAWN_DELAY);
+                    return;
+                }
+                if (visibleCullableEntities >= maxVisibleEntities
+                        || entity.getPosition().distanceSquared(session.getPlayerEntity().getPosition()) > showDistanceSquared) {
+                    // Kept hidden until it is close enough
+                    return;
+                }
+                visibleCullableEntities++;
+            }
             entity.spawnEntity(session);
 
             if (entity instanceof Tickable) {
@@ -75,18 +156,34 @@ public class EntityCache {
 
     public boolean cacheEntity(Entity entity) {
         // Check to see if the entity exists, otherwise we can end up with duplicated mobs
-        if (!entityIdTranslations.containsKey(entity.getEntityId())) {
-            entityIdTranslations.put(entity.getEntityId(), entity.getGeyserId());
+        if (javaIdEntities.putIfAbsent(entity.getEntityId(), entity) == null) {
             entities.put(entity.getGeyserId(), entity);
+            entitiesByClass.computeIfAbsent(entity.getClass(), entityClass -> new ReferenceOpenHashSet<>()).add(entity);
             return true;
         }
         return false;
     }
 
     public boolean removeEntity(Entity entity, boolean force) {
-        if (entity != null && entity.isValid() && (force || entity.despawnEntity(session))) {
-            long geyserId = entityIdTranslations.remove(entity.getEntityId());
-            entities.remove(geyserId);
+        if (entity == null) {
+            return false;
+        }
+
+        if (cullableEntities != null && cullableEntities.remove(entity)) {
+            if (!entity.isValid()) {
+                // Hidden, so there is nothing to remove on the client
+                uncacheEntity(entity);
+                return true;
+            }
+            visibleCullableEntities--;
+            if (mergeEntities && isMergeable(entity)) {
+                // Other entities may have been merged into this one; show one of them instead soon
+                ticksUntilVisibilityUpdate = Math.min(ticksUntilVisibilityUpdate, MERGE_SPAWN_DELAY);
+            }
+        }
+
+        if (entity.isValid() && (force || entity.despawnEntity(session))) {
+            uncacheEntity(entity);
 
             if (entity instanceof Tickable) {
                 tickableEntities.remove(entity);
@@ -96,6 +193,132 @@ public class EntityCache {
         return false;
     }
 
+    private void uncacheEntity(Entity entity) {
+        Entity cachedEntity = javaIdEntities.remove(entity.getEntityId());
+        if (cachedEntity != null) {
+            entities.remove(cachedEntity.getGeyserId());
+            Set<Entity> entitiesOfClass = entitiesByClass.get(cachedEntity.getClass());
+            entitiesOfClass.remove(cachedEntity);
+            if (entitiesOfClass.isEmpty()) {
+                entitiesByClass.remove(cachedEntity.getClass());
+            }
+        }
+    }
+
+    /**
+     * Shows and hides entities based on their distance to the player, nearest first, up to the entity budget.
+     * Should be called every tick.
+     */
+    public void updateVisibility() {
+        if (cullableEntities == null || cullableEntities.isEmpty() || --ticksUntilVisibilityUpdate > 0) {
+            return;
+        }
+        ticksUntilVisibilityUpdate = VISIBILITY_UPDATE_INTERVAL;
+
+        Vector3f playerPosition = session.getPlayerEntity().getPosition();
+        Entity[] cullable = cullableEntities.toArray(new Entity[0]);
+        // Sort by distance; squared distances are never negative, so their bits sort the same as their values
+        long[] sortKeys = new long[cullable.length];
+        for (int i = 0; i < cullable.length; i++) {
+            float distanceSquared = cullable[i].getPosition().distanceSquared(playerPosition);
+            sortKeys[i] = ((long) Float.floatToIntBits(distanceSquared) << 32) | i;
+        }
+        Arrays.sort(sortKeys);
+
+        Set<Entity> mergedEntities = mergeEntities ? getMergedEntities(cullable) : Collections.emptySet();
+
+        int visible = 0;
+        for (long sortKey : sortKeys) {
+            Entity entity = cullable[(int) sortKey];
+            float distanceSquared = Float.intBitsToFloat((int) (sortKey >>> 32));
+            boolean show = visible < maxVisibleEntities && !mergedEntities.contains(entity)
+                    && distanceSquared <= (entity.isValid() ? hideDistanceSquared : showDistanceSquared);
+
+            if (show) {
+                if (!entity.isValid()) {
+                    showEntity(entity);
+                }
+                visible++;
+            } else if (entity.isValid()) {
+                if (canHide(entity)) {
+                    entity.despawnEntity(session);
+                } else {
+                    visible++;
+                }
+            }
+        }
+        visibleCullableEntities = visible;
+    }
+
+    /**
+     * Groups identical items, and experience orbs, that are close to each other. One entity of each group is shown
+     * for the whole group; an entity that is already shown is preferred, so the shown entity doesn't keep changing.
+     *
+     * @return the entities that are merged into another entity and should not be shown
+     */
+    private Set<Entity> getMergedEntities(Entity[] cullable) {
+        Map<MergeKey, Entity> shownEntities = new Object2ObjectOpenHashMap<>();
+        Set<Entity> mergedEntities = new ReferenceOpenHashSet<>();
+        // Valid entities first, so they are picked to be shown
+        for (int pass = 0; pass < 2; pass++) {
+            boolean valid = pass == 0;
+            for (Entity entity : cullable) {
+                if (entity.isValid() != valid || !isMergeable(entity)) {
+                    continue;
+                }
+                MergeKey key = MergeKey.of(entity);
+                if (key != null && shownEntities.putIfAbsent(key, entity) != null) {
+                    mergedEntities.add(entity);
+                }
+            }
+        }
+        return mergedEntities;
+    }
+
+    /**
+     * Always show this entity from now on, for example because it has become linked to another entity; these links are
+     * not restored when an entity is spawned again.
+     */
+    public void pinEntity(Entity entity) {
+        if (cullableEntities != null && cullableEntities.remove(entity)) {
+            if (entity.isValid()) {
+                visibleCullableEntities--;
+            } else {
+                showEntity(entity);
+            }
+        }
+    }
+
+    private void showEntity(Entity entity) {
+        entity.spawnEntity(session);
+        if (entity instanceof LivingEntity) {
+            // Not part of the spawn packet
+            ((LivingEntity) entity).updateAllEquipment(session);
+            entity.updateBedrockAttributes(session);
+        }
+    }
+
+    private boolean canHide(Entity entity) {
+        return entity.getPassengers().isEmpty() && !entity.getMetadata().getFlags().getFlag(EntityFlag.RIDING)
+                && entity != session.getRidingVehicleEntity();
+    }
+
+    private static boolean isMergeable(Entity entity) {
+        return entity instanceof ItemEntity || entity instanceof ExpOrbEntity;
+    }
+
+    /**
+     * @return if the entity can be hidden from the client and spawned again later without losing any state
+     */
+    private static boolean isCullable(Entity entity) {
+        if (entity instanceof ItemEntity || entity instanceof ExpOrbEntity) {
+            return true;
+        }
+        // Players, armor stands and the ender dragon are made up of multiple entities or depend on other state
+        return entity instanceof LivingEntity && !(entity instanceof Tickable) && !(entity instanceof PlayerEntity)
+                && !(entity instanceof ArmorStandEntity) && !(entity instanceof EnderDragonEntity);
+    }
+
     public void removeAllEntities() {
         List<Entity> entities = new ArrayList<>(session.getEntityCache().getEntities().values());
         for (Entity entity : entities) {
@@ -111,17 +334,38 @@ public class EntityCache {
     }
 
     public Entity getEntityByJavaId(long javaId) {
-        return entities.get(entityIdTranslations.get(javaId));
+        return javaIdEntities.get(javaId);
     }
 
-    public <T extends Entity> Set<T> getEntitiesByType(Class<T> entityType) {
-        Set<T> entitiesOfType = new ObjectOpenHashSet<>();
-        for (Entity entity : (entityType == PlayerEntity.class ? playerEntities : entities).values()) {
-            if (entity.is(entityType)) {
-                entitiesOfType.add(entity.as(entityType));
+    /**
+     * @return the entities of the given type. Unless they are of more than one class, this is a view of the cache, so
+     * it must not be kept or iterated while entities of that type are spawned or removed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Entity> Collection<T> getEntitiesByType(Class<T> entityType) {
+        if (entityType == PlayerEntity.class) {
+            return (Collection<T>) Collections.unmodifiableCollection(playerEntities.values());
+        }
+
+        Set<Entity> entitiesOfClass = null;
+        Set<Entity> entitiesOfType = null;
+        for (Map.Entry<Class<? extends Entity>, Set<Entity>> entry : entitiesByClass.entrySet()) {
+            if (entityType.isAssignableFrom(entry.getKey())) {
+                if (entitiesOfClass == null) {
+                    entitiesOfClass = entry.getValue();
+                } else {
+                    // Only copied when subclasses have to be combined
+                    if (entitiesOfType == null) {
+                        entitiesOfType = new ReferenceOpenHashSet<>(entitiesOfClass);
+                    }
+                    entitiesOfType.addAll(entry.getValue());
+                }
             }
         }
-        return entitiesOfType;
+        if (entitiesOfType != null) {
+            return (Collection<T>) entitiesOfType;
+        }
+        return entitiesOfClass != null ? (Collection<T>) Collections.unmodifiableSet(entitiesOfClass) : Collections.emptySet();
     }
 
     public void addPlayerEntity(PlayerEntity entity) {
@@ -158,9 +402,28 @@ public class EntityCache {
 
     public void clear() {
         entities = null;
-        entityIdTranslations = null;
+        javaIdEntities = null;
+        entitiesByClass = null;
         playerEntities = null;
         bossBars = null;
+        pendingMovements.clear();
+        if (cullableEntities != null) {
+            cullableEntities.clear();
+        }
+    }
+
+    public void addPendingMovement(Entity entity) {
+        pendingMovements.add(entity);
+    }
+
+    /**
+     * Sends the combined movement of every entity that moved since the last call.
+     */
+    public void flushPendingMovements() {
+        for (int i = 0; i < pendingMovements.size(); i++) {
+            pendingMovements.get(i).flushMovement(session);
+        }
+        pendingMovements.clear();
     }
 
     public long getCachedPlayerEntityLink(long playerId) {
@@ -171,7 +434,55 @@ public class EntityCache {
         cachedPlayerEntityLinks.put(playerId, linkedEntityId);
     }
 
-    public List<Tickable> getTickableEntities() {
+    public Set<Tickable> getTickableEntities() {
         return tickableEntities;
     }
+
+    /**
+     * Identifies entities that look the same and are in the same two-block cell
+     */
+    private static final class MergeKey {
+        private final Object appearance;
+        private final long cell;
+
+        private MergeKey(Object appearance, long cell) {
+            this.appearance = appearance;
+            this.cell = cell;
+        }
+
+        /**
+         * @return the key of the entity, or null if it can't be merged (yet)
+         */
+        private static MergeKey of(Entity entity) {
+            Object appearance;
+            if (entity instanceof ItemEntity) {
+                appearance = ((ItemEntity) entity).getItem();
+                if (appearance == null) {
+                    return null;
+                }
+            } else {
+                // Orbs only differ in size, which isn't worth keeping apart
+                appearance = ExpOrbEntity.class;
+            }
+
+            Vector3f position = entity.getPosition();
+            long cell = (((long) position.getFloorX() >> 1) & 0x1FFFFF) << 42
+                    | (((long) position.getFloorY() >> 1) & 0x1FFFFF) << 21
+                    | (((long) position.getFloorZ() >> 1) & 0x1FFFFF);
+            return new MergeKey(appearance, cell);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MergeKey)) return false;
+            MergeKey that = (MergeKey) o;
+            return cell == that.cell && appearance.equals(that.appearance);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * appearance.hashCode() + Long.hashCode(cell);
+        }
+    }
 }
@@ -86,6 +86,13 @@ public class PacketTranslatorRegistry<T> {
         // no-op
     }
 
+    /**
+     * @return true if there is a translator for the given packet class
+     */
+    public boolean hasTranslator(Class<? extends T> clazz) {
+        return translators.containsKey(clazz);
+    }
+
     @SuppressWarnings("unchecked")
     public <P extends T> boolean translate(Class<? extends P> clazz, P packet, RorySession session) {
         if (!session.getUpstream().isClosed() && !session.isClosed()) {
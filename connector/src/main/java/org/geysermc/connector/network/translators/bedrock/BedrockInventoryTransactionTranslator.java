@@ -206,7 +206,7 @@ public class BedrockInventoryTransactionTranslator extends PacketTranslator<Inve
                             session.sendUpstreamPacket(slotPacket);
                             // Delay the interaction in case the client doesn't intend to actually use the bucket
                             // See BedrockActionTranslator.java
-                            session.setBucketScheduledFuture(session.getConnector().getGeneralThreadPool().schedule(() -> {
+                            session.setBucketScheduledFuture(session.getEventLoop().schedule(() -> {
                                 ClientPlayerUseItemPacket itemPacket = new ClientPlayerUseItemPacket(Hand.MAIN_HAND);
                                 session.sendDownstreamPacket(itemPacket);
                             }, 5, TimeUnit.MILLISECONDS));
@@ -27,7 +27,6 @@ package org.geysermc.connector.network.translators.bedrock;
 
 import com.nukkitx.protocol.bedrock.packet.ClientboundMapItemDataPacket;
 import com.nukkitx.protocol.bedrock.packet.MapInfoRequestPacket;
-import org.geysermc.connector.RoryConnector;
 import org.geysermc.connector.network.session.RorySession;
 import org.geysermc.connector.network.translators.PacketTranslator;
 import org.geysermc.connector.network.translators.Translator;
@@ -43,7 +42,7 @@ public class BedrockMapInfoRequestTranslator extends PacketTranslator<MapInfoReq
 
         if (session.getStoredMaps().containsKey(mapID)) {
             // Delay the packet 100ms to prevent the client from ignoring the packet
-            RoryConnector.getInstance().getGeneralThreadPool().schedule(() -> {
+            session.getEventLoop().schedule(() -> {
                 ClientboundMapItemDataPacket mapPacket = session.getStoredMaps().remove(mapID);
                 if (mapPacket != null) {
                     session.sendUpstreamPacket(mapPacket);
@@ -59,6 +59,7 @@ public class BedrockRespawnTranslator extends PacketTranslator<RespawnPacket> {
                 entityDataPacket.setRuntimeEntityId(entity.getGeyserId());
                 entityDataPacket.getMetadata().putAll(entity.getMetadata());
                 session.sendUpstreamPacket(entityDataPacket);
+                entity.markMetadataSent();
 
                 MovePlayerPacket movePlayerPacket = new MovePlayerPacket();
                 movePlayerPacket.setRuntimeEntityId(entity.getGeyserId());
@@ -42,7 +42,7 @@ public class BedrockServerSettingsRequestTranslator extends PacketTranslator<Ser
         SettingsUtils.buildForm(session);
 
         // Fixes https://bugs.mojang.com/browse/MCPE-94012 because of the delay
-        session.getConnector().getGeneralThreadPool().schedule(() -> {
+        session.getEventLoop().schedule(() -> {
             ServerSettingsResponsePacket serverSettingsResponsePacket = new ServerSettingsResponsePacket();
             serverSettingsResponsePacket.setFormData(session.getSettingsForm().getJSONData());
             serverSettingsResponsePacket.setFormId(SettingsUtils.SETTINGS_FORM_ID);
@@ -249,7 +249,7 @@ public class BedrockActionTranslator extends PacketTranslator<PlayerActionPacket
                 if (!session.getConnector().getConfig().isCacheChunks()) {
                     // Save the jumping status for determining teleport status
                     session.setJumping(true);
-                    session.getConnector().getGeneralThreadPool().schedule(() -> session.setJumping(false), 1, TimeUnit.SECONDS);
+                    session.getEventLoop().schedule(() -> session.setJumping(false), 1, TimeUnit.SECONDS);
                 }
                 break;
         }
@@ -27,6 +27,8 @@ package org.geysermc.connector.network.translators.chat;
 
 import com.github.steveice10.mc.protocol.data.DefaultComponentSerializer;
 import com.github.steveice10.mc.protocol.data.game.scoreboard.TeamColor;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
@@ -41,6 +43,8 @@ import org.geysermc.connector.utils.LanguageUtils;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
 
 public class MessageTranslator {
 
@@ -62,6 +66,16 @@ public class MessageTranslator {
     // Reset character
     private static final String RESET = BASE + "r";
 
+    // Compiled once, as messages are converted very often
+    private static final Pattern UNSUPPORTED_FORMATS = Pattern.compile("\u00a7[mn]");
+    private static final Pattern COLOR_CODES = Pattern.compile("\u00a7([0-9a-f])");
+    private static final Pattern DOUBLE_RESETS = Pattern.compile("\u00a7r\u00a7r");
+
+    // Converted messages, so the same message (e.g. broadcast chat or scoreboard lines) is only converted once per locale
+    private static final Cache<MessageKey, String> CONVERTED_MESSAGES = CacheBuilder.newBuilder()
+            .maximumSize(2048)
+            .build();
+
     static {
         TEAM_FORMATS.put(TeamColor.OBFUSCATED, TextDecoration.OBFUSCATED);
         TEAM_FORMATS.put(TeamColor.BOLD, TextDecoration.BOLD);
@@ -80,6 +94,19 @@ public class MessageTranslator {
      * @return Parsed and formatted message for bedrock
      */
     public static String convertMessage(Component message, String locale) {
+        if (message == null) {
+            return convertMessageUncached(null, locale);
+        }
+        MessageKey key = new MessageKey(message, locale);
+        String converted = CONVERTED_MESSAGES.getIfPresent(key);
+        if (converted == null) {
+            converted = convertMessageUncached(message, locale);
+            CONVERTED_MESSAGES.put(key, converted);
+        }
+        return converted;
+    }
+
+    private static String convertMessageUncached(Component message, String locale) {
         try {
             // Get a Locale from the given locale string
             Locale localeCode = Locale.forLanguageTag(locale.replace('_', '-'));
@@ -87,15 +114,7 @@ public class MessageTranslator {
 
             String legacy = LegacyComponentSerializer.legacySection().serialize(message);
 
-            // Strip strikethrough and underline as they are not supported on bedrock
-            legacy = legacy.replaceAll("\u00a7[mn]", "");
-
-            // Make color codes reset formatting like Java
-            // See https://minecraft.gamepedia.com/Formatting_codes#Usage
-            legacy = legacy.replaceAll("\u00a7([0-9a-f])", "\u00a7r\u00a7$1");
-            legacy = legacy.replaceAll("\u00a7r\u00a7r", "\u00a7r");
-
-            return legacy;
+            return toBedrockFormatting(legacy);
         } catch (Exception e) {
             RoryConnector.getInstance().getLogger().debug(GSON_SERIALIZER.serialize(message));
             RoryConnector.getInstance().getLogger().error("Failed to parse message", e);
@@ -104,8 +123,49 @@ public class MessageTranslator {
         }
     }
 
+    /**
+     * Adjusts legacy formatting codes to display on Bedrock like they do on Java.
+     *
+     * @param legacy the legacy formatted message
+     * @return the message with Bedrock formatting
+     */
+    static String toBedrockFormatting(String legacy) {
+        if (legacy.indexOf('\u00a7') == -1) {
+            return legacy;
+        }
+
+        // Strip strikethrough and underline as they are not supported on bedrock
+        legacy = UNSUPPORTED_FORMATS.matcher(legacy).replaceAll("");
+
+        // Make color codes reset formatting like Java
+        // See https://minecraft.gamepedia.com/Formatting_codes#Usage
+        legacy = COLOR_CODES.matcher(legacy).replaceAll("\u00a7r\u00a7$1");
+        return DOUBLE_RESETS.matcher(legacy).replaceAll("\u00a7r");
+    }
+
     public static String convertMessage(String message, String locale) {
-        return convertMessage(GSON_SERIALIZER.deserialize(message), locale);
+        MessageKey key = new MessageKey(message, locale);
+        String converted = CONVERTED_MESSAGES.getIfPresent(key);
+        if (converted == null) {
+            // Not cached under the component, as the JSON string is what repeats
+            converted = convertMessageUncached(GSON_SERIALIZER.deserialize(message), locale);
+            CONVERTED_MESSAGES.put(key, converted);
+        }
+        return converted;
+    }
+
+    /**
+     * Clears all converted messages. Should be called when translations change.
+     */
+    public static void clearCache() {
+        CONVERTED_MESSAGES.invalidateAll();
+    }
+
+    /**
+     * @return how many converted messages are cached
+     */
+    static long getCacheSize() {
+        return CONVERTED_MESSAGES.size();
     }
 
     public static String convertMessage(String message) {
@@ -270,4 +330,30 @@ public class MessageTranslator {
 
         return false;
     }
+
+    /**
+     * A message, either a component or its JSON, with the locale it is converted for
+     */
+    static final class MessageKey {
+        private final Object message;
+        private final String locale;
+
+        MessageKey(Object message, String locale) {
+            this.message = message;
+            this.locale = locale;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MessageKey)) return false;
+            MessageKey that = (MessageKey) o;
+            return message.equals(that.message) && Objects.equals(locale, that.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * message.hashCode() + Objects.hashCode(locale);
+        }
+    }
 }
@@ -27,8 +27,6 @@ package org.geysermc.connector.network.translators.collision;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.google.common.collect.BiMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import org.geysermc.connector.RoryConnector;
 import org.geysermc.connector.network.session.RorySession;
 import org.geysermc.connector.network.translators.collision.translators.BlockCollision;
@@ -45,7 +43,10 @@ import java.util.*;
 import java.util.regex.Pattern;
 
 public class CollisionTranslator {
-    private static final Int2ObjectMap<BlockCollision> COLLISION_MAP = new Int2ObjectOpenHashMap<>();
+    /**
+     * Collisions indexed by Java runtime ID. Null entries have no collision.
+     */
+    private static BlockCollision[] COLLISIONS = new BlockCollision[0];
 
     public static void init() {
         // If chunk caching is off then don't initialize
@@ -79,14 +80,16 @@ public class CollisionTranslator {
 
         // Map of classes that don't change based on parameters that have already been created
         Map<Class<?>, BlockCollision> instantiatedCollision = new HashMap<>();
+        BlockCollision[] collisions = new BlockCollision[BlockTranslator.getJavaBlockStateCount()];
 
         for (Map.Entry<String, Integer> entry : javaIdBlockMap.entrySet()) {
             BlockCollision newCollision = instantiateCollision(entry.getKey(), entry.getValue(), collisionTypes, annotationMap, instantiatedCollision, collisionList);
             if (newCollision != null) {
                 instantiatedCollision.put(newCollision.getClass(), newCollision);
             }
-            COLLISION_MAP.put(entry.getValue().intValue(), newCollision);
+            collisions[entry.getValue()] = newCollision;
         }
+        COLLISIONS = collisions;
     }
 
     private static BlockCollision instantiateCollision(String blockID, int numericBlockID, List<Class<?>> collisionTypes, Map<Class<?>, CollisionRemapper> annotationMap, Map<Class<?>, BlockCollision> instantiatedCollision, ArrayNode collisionList) {
@@ -172,7 +175,10 @@ public class CollisionTranslator {
     // Note: these reuse classes, so don't try to store more than once instance or coordinates will get overwritten
 
     public static BlockCollision getCollision(int blockID, int x, int y, int z) {
-        BlockCollision collision = COLLISION_MAP.get(blockID);
+        if (blockID < 0 || blockID >= COLLISIONS.length) {
+            return null;
+        }
+        BlockCollision collision = COLLISIONS[blockID];
         if (collision != null) {
             collision.setPosition(x, y, z);
         }
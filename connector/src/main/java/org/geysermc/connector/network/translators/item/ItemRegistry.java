@@ -40,6 +40,8 @@ import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArraySet;
 import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
@@ -61,10 +63,27 @@ public class ItemRegistry {
 
     private static final Map<String, ItemEntry> JAVA_IDENTIFIER_MAP = new HashMap<>();
 
+    /*
+     * Indexes used to look up an item entry from a Bedrock item. Each resolves to the same entry that a scan over
+     * ITEM_ENTRIES would find first. Items only existing on Java are never included.
+     */
+    /**
+     * Bedrock ID and damage to item entry
+     */
+    private static final Long2ObjectMap<ItemEntry> BEDROCK_ID_AND_DAMAGE_TO_ITEM = new Long2ObjectOpenHashMap<>();
+    /**
+     * Bedrock ID and block runtime ID to item entry
+     */
+    private static final Long2ObjectMap<ItemEntry> BEDROCK_ID_AND_BLOCK_TO_ITEM = new Long2ObjectOpenHashMap<>();
+    /**
+     * Bedrock ID to item entries that match any damage value (potions and arrows)
+     */
+    private static final Int2ObjectMap<ItemEntry> BEDROCK_ID_TO_ANY_DAMAGE_ITEM = new Int2ObjectOpenHashMap<>();
+
     /**
      * A list of all identifiers that only exist on Java. Used to prevent creative items from becoming these unintentionally.
      */
-    private static final Set<String> JAVA_ONLY_ITEMS;
+    static final Set<String> JAVA_ONLY_ITEMS;
 
     public static final ItemData[] CREATIVE_ITEMS;
 
@@ -254,7 +273,8 @@ public class ItemRegistry {
 
         int itemIndex = 0;
         int javaFurnaceMinecartId = 0;
-        boolean usingFurnaceMinecart = RoryConnector.getInstance().getConfig().isAddNonBedrockItems();
+        // The connector can be missing if the registry is loaded on its own, such as in tests
+        boolean usingFurnaceMinecart = RoryConnector.getInstance() != null && RoryConnector.getInstance().getConfig().isAddNonBedrockItems();
         Iterator<Map.Entry<String, JsonNode>> iterator = items.fields();
         while (iterator.hasNext()) {
             Map.Entry<String, JsonNode> entry = iterator.next();
@@ -535,6 +555,31 @@ public class ItemRegistry {
             javaOnlyItems.add("minecraft:furnace_minecart");
         }
         JAVA_ONLY_ITEMS = ImmutableSet.copyOf(javaOnlyItems);
+
+        // Iterate in the same order as lookups used to, so the first matching entry still wins
+        for (ItemEntry itemEntry : ITEM_ENTRIES.values()) {
+            JAVA_IDENTIFIER_MAP.putIfAbsent(itemEntry.getJavaIdentifier(), itemEntry);
+
+            if (JAVA_ONLY_ITEMS.contains(itemEntry.getJavaIdentifier())) {
+                // From a Bedrock item data, we aren't getting one of these items
+                continue;
+            }
+
+            int bedrockId = itemEntry.getBedrockId();
+            BEDROCK_ID_AND_BLOCK_TO_ITEM.putIfAbsent(bedrockItemKey(bedrockId, itemEntry.getBedrockBlockId()), itemEntry);
+            // An earlier entry matching any damage value shadows all later entries of this ID
+            if (!BEDROCK_ID_TO_ANY_DAMAGE_ITEM.containsKey(bedrockId)) {
+                BEDROCK_ID_AND_DAMAGE_TO_ITEM.putIfAbsent(bedrockItemKey(bedrockId, itemEntry.getBedrockData()), itemEntry);
+                // Make exceptions for potions and tipped arrows, whose damage values can vary
+                if (itemEntry.getJavaIdentifier().endsWith("potion") || itemEntry.getJavaIdentifier().equals("minecraft:arrow")) {
+                    BEDROCK_ID_TO_ANY_DAMAGE_ITEM.put(bedrockId, itemEntry);
+                }
+            }
+        }
+    }
+
+    private static long bedrockItemKey(int bedrockId, int value) {
+        return ((long) bedrockId << 32) | (value & 0xFFFFFFFFL);
     }
 
     /* pre-1.16.220 support start */
@@ -588,28 +633,21 @@ public class ItemRegistry {
         boolean isBlock = data.getBlockRuntimeId() != 0;
         boolean hasDamage = data.getDamage() != 0;
 
-        for (ItemEntry itemEntry : ITEM_ENTRIES.values()) {
-            if (itemEntry.getBedrockId() == data.getId()) {
-                if (isBlock && !hasDamage) { // Pre-1.16.220 will not use block runtime IDs at all, so we shouldn't check either
-                    if (data.getBlockRuntimeId() != itemEntry.getBedrockBlockId()) {
-                        continue;
-                    }
-                } else {
-                    if (!(itemEntry.getBedrockData() == data.getDamage() ||
-                            // Make exceptions for potions and tipped arrows, whose damage values can vary
-                            (itemEntry.getJavaIdentifier().endsWith("potion") || itemEntry.getJavaIdentifier().equals("minecraft:arrow")))) {
-                        continue;
-                    }
-                }
-                if (!JAVA_ONLY_ITEMS.contains(itemEntry.getJavaIdentifier())) {
-                    // From a Bedrock item data, we aren't getting one of these items
-                    return itemEntry;
-                }
+        ItemEntry itemEntry;
+        if (isBlock && !hasDamage) { // Pre-1.16.220 will not use block runtime IDs at all, so we shouldn't check either
+            itemEntry = BEDROCK_ID_AND_BLOCK_TO_ITEM.get(bedrockItemKey(data.getId(), data.getBlockRuntimeId()));
+        } else {
+            itemEntry = BEDROCK_ID_AND_DAMAGE_TO_ITEM.get(bedrockItemKey(data.getId(), data.getDamage()));
+            if (itemEntry == null) {
+                itemEntry = BEDROCK_ID_TO_ANY_DAMAGE_ITEM.get(data.getId());
             }
         }
+        if (itemEntry != null) {
+            return itemEntry;
+        }
 
         // This will hide the message when the player clicks with an empty hand
-        if (data.getId() != 0 && data.getDamage() != 0) {
+        if (data.getId() != 0 && data.getDamage() != 0 && RoryConnector.getInstance() != null) {
             RoryConnector.getInstance().getLogger().debug("Missing mapping for bedrock item " + data.getId() + ":" + data.getDamage());
         }
         return ItemEntry.AIR;
@@ -623,13 +661,6 @@ public class ItemRegistry {
      * @return an item entry from the given java edition identifier
      */
     public static ItemEntry getItemEntry(String javaIdentifier) {
-        return JAVA_IDENTIFIER_MAP.computeIfAbsent(javaIdentifier, key -> {
-            for (ItemEntry entry : ITEM_ENTRIES.values()) {
-                if (entry.getJavaIdentifier().equals(key)) {
-                    return entry;
-                }
-            }
-            return null;
-        });
+        return JAVA_IDENTIFIER_MAP.get(javaIdentifier);
     }
 }
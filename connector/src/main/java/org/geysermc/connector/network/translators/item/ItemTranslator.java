@@ -119,6 +119,9 @@ public abstract class ItemTranslator {
         return itemStack;
     }
 
+    /**
+     * @return the translated item, which may be cached and shared between sessions, so it must not be modified
+     */
     public static ItemData translateToBedrock(RorySession session, ItemStack stack) {
         if (stack == null) {
             return ItemData.AIR;
@@ -130,6 +133,25 @@ public abstract class ItemTranslator {
             return ItemData.AIR;
         }
 
+        TranslatedItemCache itemCache = session.getConnector().getTranslatedItemCache();
+        if (itemCache != null && stack.getNbt() != null) {
+            // Items without NBT are cheap to translate and not worth a cache entry
+            int blockStateVersion = session.getBlockTranslator().getBlockStateVersion();
+            ItemData itemData = itemCache.get(stack.getId(), stack.getAmount(), stack.getNbt(), session.getLocale(), blockStateVersion);
+            if (itemData == null) {
+                itemData = translateToBedrock(session, stack, bedrockItem);
+                itemCache.put(stack.getId(), stack.getAmount(), stack.getNbt(), session.getLocale(), blockStateVersion, itemData);
+            }
+            return itemData;
+        }
+        return translateToBedrock(session, stack, bedrockItem);
+    }
+
+    /**
+     * Translates a Java item to Bedrock. The result must only depend on the item, the session's locale and the
+     * session's block translator, as it may be cached and shared between sessions.
+     */
+    private static ItemData translateToBedrock(RorySession session, ItemStack stack, ItemEntry bedrockItem) {
         CompoundTag nbt = stack.getNbt() != null ? stack.getNbt().clone() : null;
 
         // This is a fallback for maps with no nbt
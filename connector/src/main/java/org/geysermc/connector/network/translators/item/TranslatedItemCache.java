@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.item;
+
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.nukkitx.protocol.bedrock.data.inventory.ItemData;
+
+import java.util.Objects;
+
+/**
+ * A connector-wide cache of translated Bedrock items, keyed by everything their translation depends on. Servers
+ * that repeatedly send the same inventory contents (for example, menus on a hub) only need each item with NBT to be
+ * translated once per locale.
+ */
+public class TranslatedItemCache {
+    private final Cache<ItemKey, ItemData> cache;
+
+    /**
+     * @param maximumSize the amount of items that may be cached before evicting the least recently used ones
+     */
+    public TranslatedItemCache(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param blockStateVersion the block state version of the block translator the item will be translated with
+     * @param locale the locale the item will be translated for
+     * @return the translated item, or null if it isn't cached
+     */
+    public ItemData get(int javaId, int amount, CompoundTag nbt, String locale, int blockStateVersion) {
+        return cache.getIfPresent(new ItemKey(javaId, amount, nbt, locale, blockStateVersion));
+    }
+
+    /**
+     * Store a translated item. The NBT is copied, as Java items may be modified after they are translated.
+     */
+    public void put(int javaId, int amount, CompoundTag nbt, String locale, int blockStateVersion, ItemData itemData) {
+        cache.put(new ItemKey(javaId, amount, nbt.clone(), locale, blockStateVersion), itemData);
+    }
+
+    /**
+     * Remove the items translated for a locale, for when that locale has finished loading. Items translated before then
+     * used the fallback language.
+     */
+    public void invalidateLocale(String locale) {
+        cache.asMap().keySet().removeIf(key -> locale.equalsIgnoreCase(key.locale));
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getSize() {
+        return cache.size();
+    }
+
+    private static final class ItemKey {
+        private final int javaId;
+        private final int amount;
+        private final CompoundTag nbt;
+        private final String locale;
+        private final int blockStateVersion;
+        private final int hashCode;
+
+        private ItemKey(int javaId, int amount, CompoundTag nbt, String locale, int blockStateVersion) {
+            this.javaId = javaId;
+            this.amount = amount;
+            this.nbt = nbt;
+            this.locale = locale;
+            this.blockStateVersion = blockStateVersion;
+
+            int hash = 31 * javaId + amount;
+            hash = 31 * hash + nbt.hashCode();
+            hash = 31 * hash + Objects.hashCode(locale);
+            this.hashCode = 31 * hash + blockStateVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ItemKey)) return false;
+            ItemKey that = (ItemKey) o;
+            return hashCode == that.hashCode && javaId == that.javaId && amount == that.amount
+                    && blockStateVersion == that.blockStateVersion && Objects.equals(locale, that.locale) && nbt.equals(that.nbt);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
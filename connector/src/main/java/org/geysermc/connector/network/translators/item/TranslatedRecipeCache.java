@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.item;
+
+import com.github.steveice10.mc.protocol.data.game.recipe.Recipe;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.nukkitx.protocol.bedrock.packet.CraftingDataPacket;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.IntList;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * A connector-wide cache of translated recipe lists. Every player on the same server is sent the same recipes,
+ * which are expensive to translate, so they are only translated once per server, locale and Bedrock version.
+ */
+public class TranslatedRecipeCache {
+    /**
+     * Enough for a few backend servers with players using a few different locales
+     */
+    private static final int MAXIMUM_SIZE = 32;
+
+    private final Cache<RecipesKey, TranslatedRecipes> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .recordStats()
+            .build();
+
+    /**
+     * @param recipes the recipes sent by the Java server
+     * @param locale the locale the recipes will be translated for
+     * @param blockStateVersion the block state version of the block translator the recipes will be translated with
+     * @param protocolVersion the Bedrock protocol version the recipes will be sent with
+     * @param translator translates the recipes if they aren't cached. Only called once for sessions needing the same
+     *                   recipes at the same time.
+     * @return the translated recipes, which are shared and must not be modified
+     */
+    public TranslatedRecipes get(Recipe[] recipes, String locale, int blockStateVersion, int protocolVersion,
+                                 Supplier<TranslatedRecipes> translator) {
+        try {
+            return cache.get(new RecipesKey(recipes, locale, blockStateVersion, protocolVersion), translator::get);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new RuntimeException("Unable to translate recipes", e.getCause());
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getSize() {
+        return cache.size();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class TranslatedRecipes {
+        private final CraftingDataPacket craftingDataPacket;
+        /**
+         * All crafting recipes by their network ID
+         */
+        private final Int2ObjectMap<Recipe> craftingRecipes;
+        /**
+         * The key is the Java ID of the item; the values are all the possible outputs' Java IDs
+         */
+        private final Int2ObjectMap<IntList> stonecutterRecipes;
+        /**
+         * The last network ID used by these recipes
+         */
+        private final int lastNetId;
+    }
+
+    private static final class RecipesKey {
+        private final Recipe[] recipes;
+        private final String locale;
+        private final int blockStateVersion;
+        private final int protocolVersion;
+        private final int hashCode;
+
+        private RecipesKey(Recipe[] recipes, String locale, int blockStateVersion, int protocolVersion) {
+            this.recipes = recipes;
+            this.locale = locale;
+            this.blockStateVersion = blockStateVersion;
+            this.protocolVersion = protocolVersion;
+
+            int hash = Arrays.hashCode(recipes);
+            hash = 31 * hash + Objects.hashCode(locale);
+            hash = 31 * hash + blockStateVersion;
+            this.hashCode = 31 * hash + protocolVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RecipesKey)) return false;
+            RecipesKey that = (RecipesKey) o;
+            return hashCode == that.hashCode && blockStateVersion == that.blockStateVersion
+                    && protocolVersion == that.protocolVersion && Objects.equals(locale, that.locale)
+                    && Arrays.equals(recipes, that.recipes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
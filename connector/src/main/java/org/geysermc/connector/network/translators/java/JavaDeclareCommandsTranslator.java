@@ -28,6 +28,8 @@ package org.geysermc.connector.network.translators.java;
 import com.github.steveice10.mc.protocol.data.game.command.CommandNode;
 import com.github.steveice10.mc.protocol.data.game.command.CommandParser;
 import com.github.steveice10.mc.protocol.packet.ingame.server.ServerDeclareCommandsPacket;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.nukkitx.protocol.bedrock.data.command.CommandData;
 import com.nukkitx.protocol.bedrock.data.command.CommandEnumData;
 import com.nukkitx.protocol.bedrock.data.command.CommandParam;
@@ -84,6 +86,14 @@ public class JavaDeclareCommandsTranslator extends PacketTranslator<ServerDeclar
         }
     };
 
+    /**
+     * Translated command trees, shared between sessions. Servers send the same tree to players with the same
+     * permissions, and send it again on every world change.
+     */
+    private static final Cache<CommandTree, AvailableCommandsPacket> TRANSLATED_COMMANDS = CacheBuilder.newBuilder()
+            .maximumSize(64)
+            .build();
+
     static {
         List<String> validColors = new ArrayList<>(NamedTextColor.NAMES.keys());
         validColors.add("reset");
@@ -108,7 +118,23 @@ public class JavaDeclareCommandsTranslator extends PacketTranslator<ServerDeclar
             return;
         }
 
-        CommandNode[] nodes = packet.getNodes();
+        CommandTree key = new CommandTree(packet.getNodes(), packet.getFirstNodeIndex());
+        AvailableCommandsPacket availableCommandsPacket = TRANSLATED_COMMANDS.getIfPresent(key);
+        if (availableCommandsPacket == null) {
+            availableCommandsPacket = translateCommands(packet.getNodes(), packet.getFirstNodeIndex(), session);
+            TRANSLATED_COMMANDS.put(key, availableCommandsPacket);
+        }
+
+        session.getConnector().getLogger().debug("Sending command packet of " + availableCommandsPacket.getCommands().size() + " commands");
+
+        // Finally, send the commands to the client
+        session.sendUpstreamPacket(availableCommandsPacket);
+    }
+
+    /**
+     * Translates a Java command tree. The result must only depend on the command tree, as it is shared between sessions.
+     */
+    private static AvailableCommandsPacket translateCommands(CommandNode[] nodes, int firstNodeIndex, RorySession session) {
         List<CommandData> commandData = new ArrayList<>();
         IntSet commandNodes = new IntOpenHashSet();
         Set<String> knownAliases = new HashSet<>();
@@ -116,7 +142,7 @@ public class JavaDeclareCommandsTranslator extends PacketTranslator<ServerDeclar
         Int2ObjectMap<List<CommandNode>> commandArgs = new Int2ObjectOpenHashMap<>();
 
         // Get the first node, it should be a root node
-        CommandNode rootNode = nodes[packet.getFirstNodeIndex()];
+        CommandNode rootNode = nodes[firstNodeIndex];
 
         // Loop through the root nodes to get all commands
         for (int nodeIndex : rootNode.getChildIndices()) {
@@ -158,11 +184,7 @@ public class JavaDeclareCommandsTranslator extends PacketTranslator<ServerDeclar
         // Add our commands to the AvailableCommandsPacket for the bedrock client
         AvailableCommandsPacket availableCommandsPacket = new AvailableCommandsPacket();
         availableCommandsPacket.getCommands().addAll(commandData);
-
-        session.getConnector().getLogger().debug("Sending command packet of " + commandData.size() + " commands");
-
-        // Finally, send the commands to the client
-        session.sendUpstreamPacket(availableCommandsPacket);
+        return availableCommandsPacket;
     }
 
     /**
@@ -431,4 +453,53 @@ public class JavaDeclareCommandsTranslator extends PacketTranslator<ServerDeclar
             return treeParamData;
         }
     }
+
+    /**
+     * A command tree, compared by the parts of each node that are used in the translation
+     */
+    static final class CommandTree {
+        private final CommandNode[] nodes;
+        private final int firstNodeIndex;
+        private final int hashCode;
+
+        CommandTree(CommandNode[] nodes, int firstNodeIndex) {
+            this.nodes = nodes;
+            this.firstNodeIndex = firstNodeIndex;
+
+            int hash = firstNodeIndex;
+            for (CommandNode node : nodes) {
+                hash = 31 * hash + Boolean.hashCode(node.isExecutable());
+                hash = 31 * hash + Arrays.hashCode(node.getChildIndices());
+                hash = 31 * hash + node.getRedirectIndex();
+                hash = 31 * hash + Objects.hashCode(node.getName());
+                hash = 31 * hash + Objects.hashCode(node.getParser());
+            }
+            this.hashCode = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CommandTree)) return false;
+            CommandTree that = (CommandTree) o;
+            if (hashCode != that.hashCode || firstNodeIndex != that.firstNodeIndex || nodes.length != that.nodes.length) {
+                return false;
+            }
+            for (int i = 0; i < nodes.length; i++) {
+                CommandNode a = nodes[i];
+                CommandNode b = that.nodes[i];
+                if (a.isExecutable() != b.isExecutable() || a.getRedirectIndex() != b.getRedirectIndex()
+                        || a.getParser() != b.getParser() || !Objects.equals(a.getName(), b.getName())
+                        || !Arrays.equals(a.getChildIndices(), b.getChildIndices())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
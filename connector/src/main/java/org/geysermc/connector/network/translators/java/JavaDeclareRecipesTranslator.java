@@ -43,6 +43,7 @@ import org.geysermc.connector.network.session.RorySession;
 import org.geysermc.connector.network.translators.PacketTranslator;
 import org.geysermc.connector.network.translators.Translator;
 import org.geysermc.connector.network.translators.item.*;
+import org.geysermc.connector.network.translators.item.TranslatedRecipeCache.TranslatedRecipes;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -57,13 +58,31 @@ public class JavaDeclareRecipesTranslator extends PacketTranslator<ServerDeclare
 
     @Override
     public void translate(ServerDeclareRecipesPacket packet, RorySession session) {
+        // Everyone on the same server gets the same recipes, so only translate them once
+        TranslatedRecipes translatedRecipes = session.getConnector().getTranslatedRecipeCache().get(packet.getRecipes(),
+                session.getLocale(), session.getBlockTranslator().getBlockStateVersion(),
+                session.getUpstream().getSession().getPacketCodec().getProtocolVersion(),
+                () -> translateRecipes(packet.getRecipes(), session));
+
+        session.sendUpstreamPacket(translatedRecipes.getCraftingDataPacket());
+        session.setCraftingRecipes(translatedRecipes.getCraftingRecipes());
+        session.getUnlockedRecipes().clear();
+        session.setStonecutterRecipes(translatedRecipes.getStonecutterRecipes());
+        session.getLastRecipeNetId().set(translatedRecipes.getLastNetId());
+    }
+
+    /**
+     * Translates the recipes of the Java server. The result must only depend on the recipes, the session's locale,
+     * block translator and Bedrock version, as it is shared between sessions.
+     */
+    private TranslatedRecipes translateRecipes(Recipe[] recipes, RorySession session) {
         // Get the last known network ID (first used for the pregenerated recipes) and increment from there.
         int netId = RecipeRegistry.LAST_RECIPE_NET_ID + 1;
         Int2ObjectMap<Recipe> recipeMap = new Int2ObjectOpenHashMap<>(RecipeRegistry.ALL_CRAFTING_RECIPES);
         Int2ObjectMap<List<StoneCuttingRecipeData>> unsortedStonecutterData = new Int2ObjectOpenHashMap<>();
         CraftingDataPacket craftingDataPacket = new CraftingDataPacket();
         craftingDataPacket.setCleanRecipes(true);
-        for (Recipe recipe : packet.getRecipes()) {
+        for (Recipe recipe : recipes) {
             switch (recipe.getType()) {
                 case CRAFTING_SHAPELESS: {
                     ShapelessRecipeData shapelessRecipeData = (ShapelessRecipeData) recipe.getData();
@@ -191,11 +210,8 @@ public class JavaDeclareRecipesTranslator extends PacketTranslator<ServerDeclare
             }
         }
 
-        session.sendUpstreamPacket(craftingDataPacket);
-        session.setCraftingRecipes(recipeMap);
-        session.getUnlockedRecipes().clear();
-        session.setStonecutterRecipes(stonecutterRecipeMap);
-        session.getLastRecipeNetId().set(netId);
+        return new TranslatedRecipes(craftingDataPacket, Int2ObjectMaps.unmodifiable(recipeMap),
+                Int2ObjectMaps.unmodifiable(stonecutterRecipeMap), netId);
     }
 
     //TODO: rewrite
@@ -63,7 +63,7 @@ public class JavaEntityCollectItemTranslator extends PacketTranslator<ServerEnti
             xpPacket.setPosition(collectedEntity.getPosition());
             xpPacket.setData(0);
             session.sendUpstreamPacket(xpPacket);
-        } else {
+        } else if (collectedEntity.isValid()) {
             // Item is being picked up (visual only)
             TakeItemEntityPacket takeItemEntityPacket = new TakeItemEntityPacket();
             takeItemEntityPacket.setRuntimeEntityId(collectorEntity.getGeyserId());
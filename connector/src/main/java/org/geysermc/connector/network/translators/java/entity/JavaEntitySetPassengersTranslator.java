@@ -56,6 +56,8 @@ public class JavaEntitySetPassengersTranslator extends PacketTranslator<ServerEn
         }
 
         if (entity == null) return;
+        // Entity links are not restored if an entity is hidden and shown again
+        session.getEntityCache().pinEntity(entity);
 
         LongOpenHashSet passengers = entity.getPassengers().clone();
         boolean rider = true;
@@ -77,6 +79,7 @@ public class JavaEntitySetPassengersTranslator extends PacketTranslator<ServerEn
             if (passenger == null) {
                 continue;
             }
+            session.getEntityCache().pinEntity(passenger);
 
             EntityLinkData.Type type = rider ? EntityLinkData.Type.RIDER : EntityLinkData.Type.PASSENGER;
             SetEntityLinkPacket linkPacket = new SetEntityLinkPacket();
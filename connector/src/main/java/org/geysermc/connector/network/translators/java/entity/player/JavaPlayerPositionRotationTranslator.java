@@ -66,6 +66,7 @@ public class JavaPlayerPositionRotationTranslator extends PacketTranslator<Serve
             entityDataPacket.setRuntimeEntityId(entity.getGeyserId());
             entityDataPacket.getMetadata().putAll(entity.getMetadata());
             session.sendUpstreamPacket(entityDataPacket);
+            entity.markMetadataSent();
 
             MovePlayerPacket movePlayerPacket = new MovePlayerPacket();
             movePlayerPacket.setRuntimeEntityId(entity.getGeyserId());
@@ -25,7 +25,6 @@
 
 package org.geysermc.connector.network.translators.java.entity.spawn;
 
-import org.geysermc.connector.RoryConnector;
 import org.geysermc.connector.entity.PaintingEntity;
 import org.geysermc.connector.network.session.RorySession;
 import org.geysermc.connector.network.translators.PacketTranslator;
@@ -42,7 +41,7 @@ public class JavaSpawnPaintingTranslator extends PacketTranslator<ServerSpawnPai
     public void translate(ServerSpawnPaintingPacket packet, RorySession session) {
         Vector3f position = Vector3f.from(packet.getPosition().getX(), packet.getPosition().getY(), packet.getPosition().getZ());
 
-        RoryConnector.getInstance().getGeneralThreadPool().execute(() -> { // #slowdownbrother, just don't execute it directly
+        session.getEventLoop().execute(() -> { // #slowdownbrother, just don't execute it directly
             PaintingEntity entity = new PaintingEntity(
                     packet.getEntityId(),
                     session.getEntityCache().getNextEntityId().incrementAndGet(),
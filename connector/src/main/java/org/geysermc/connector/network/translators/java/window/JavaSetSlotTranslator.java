@@ -77,7 +77,7 @@ public class JavaSetSlotTranslator extends PacketTranslator<ServerSetSlotPacket>
                 if (session.getCraftingGridFuture() != null) {
                     session.getCraftingGridFuture().cancel(false);
                 }
-                session.setCraftingGridFuture(session.getConnector().getGeneralThreadPool().schedule(() -> session.addInventoryTask(() -> updateCraftingGrid(session, packet, inventory, translator)), 150, TimeUnit.MILLISECONDS));
+                session.setCraftingGridFuture(session.getEventLoop().schedule(() -> session.addInventoryTask(() -> updateCraftingGrid(session, packet, inventory, translator)), 150, TimeUnit.MILLISECONDS));
 
                 RoryItemStack newItem = RoryItemStack.from(packet.getItem());
                 if (packet.getWindowId() == 0 && !(translator instanceof PlayerInventoryTranslator)) {
@@ -217,7 +217,7 @@ public class JavaSetSlotTranslator extends PacketTranslator<ServerSetSlotPacket>
 
             ShapedRecipeData data = new ShapedRecipeData(width, height, "", javaIngredients, packet.getItem());
             // Cache this recipe so we know the client has received it
-            session.getCraftingRecipes().put(newRecipeId, new Recipe(RecipeType.CRAFTING_SHAPED, uuid.toString(), data));
+            session.addCraftingRecipe(newRecipeId, new Recipe(RecipeType.CRAFTING_SHAPED, uuid.toString(), data));
 
             CraftingDataPacket craftPacket = new CraftingDataPacket();
             craftPacket.getCraftingData().add(CraftingData.fromShaped(
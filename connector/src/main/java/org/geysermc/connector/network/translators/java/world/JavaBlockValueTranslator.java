@@ -127,7 +127,7 @@ public class JavaBlockValueTranslator extends PacketTranslator<ServerBlockValueP
         blockEntityDataPacket.setData(buildPistonTag(position, progress, lastProgress, state));
         session.sendUpstreamPacket(blockEntityDataPacket);
         if (lastProgress != 1.0f) {
-            session.getConnector().getGeneralThreadPool().schedule(() ->
+            session.getEventLoop().schedule(() ->
                             extendPiston(session, position, (progress >= 1.0f) ? 1.0f : progress + 0.5f, progress),
                     20, TimeUnit.MILLISECONDS);
         }
@@ -147,7 +147,7 @@ public class JavaBlockValueTranslator extends PacketTranslator<ServerBlockValueP
         blockEntityDataPacket.setData(buildPistonTag(position, progress, lastProgress, state));
         session.sendUpstreamPacket(blockEntityDataPacket);
         if (lastProgress != 0.0f) {
-            session.getConnector().getGeneralThreadPool().schedule(() ->
+            session.getEventLoop().schedule(() ->
                             retractPiston(session, position, (progress <= 0.0f) ? 0.0f : progress - 0.5f, progress),
                     20, TimeUnit.MILLISECONDS);
         }
@@ -27,6 +27,7 @@ package org.geysermc.connector.network.translators.java.world;
 
 import com.github.steveice10.mc.protocol.data.game.chunk.Column;
 import com.github.steveice10.mc.protocol.packet.ingame.server.world.ServerChunkDataPacket;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
 import com.nukkitx.nbt.NBTOutputStream;
 import com.nukkitx.nbt.NbtMap;
 import com.nukkitx.nbt.NbtUtils;
@@ -35,14 +36,20 @@ import com.nukkitx.protocol.bedrock.packet.LevelChunkPacket;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
 import org.geysermc.connector.RoryConnector;
 import org.geysermc.connector.network.session.RorySession;
+import org.geysermc.connector.network.session.cache.ChunkBlobCache;
 import org.geysermc.connector.network.translators.BiomeTranslator;
 import org.geysermc.connector.network.translators.PacketTranslator;
 import org.geysermc.connector.network.translators.Translator;
-import org.geysermc.connector.network.translators.world.chunk.ChunkSection;
 import org.geysermc.connector.utils.ChunkUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
 @Translator(packet = ServerChunkDataPacket.class)
 public class JavaChunkDataTranslator extends PacketTranslator<ServerChunkDataPacket> {
     /**
@@ -73,65 +80,144 @@ public class JavaChunkDataTranslator extends PacketTranslator<ServerChunkDataPac
         }
 
         boolean isNonFullChunk = packet.getColumn().getBiomeData() == null;
+        // Partial updates don't carry biomes, but the whole column is sent to Bedrock
+        int[] biomeData = isNonFullChunk ? session.getChunkCache().getBiomeData(mergedColumn.getX(), mergedColumn.getZ()) : mergedColumn.getBiomeData();
 
-        RoryConnector.getInstance().getGeneralThreadPool().execute(() -> {
-            try {
-                ChunkUtils.ChunkData chunkData = ChunkUtils.translateToBedrock(session, mergedColumn, isNonFullChunk);
-                ChunkSection[] sections = chunkData.getSections();
+        // Block entities of sections left out of a partial update, as translated when the column was sent before
+        byte[] cachedBlockEntities = session.getChunkCache().getTranslatedBlockEntities(mergedColumn.getX(), mergedColumn.getZ());
 
-                // Find highest section
-                int sectionCount = sections.length - 1;
-                while (sectionCount >= 0 && sections[sectionCount] == null) {
-                    sectionCount--;
-                }
-                sectionCount++;
+        session.getChunkTranslationQueue().submit(mergedColumn.getX(), mergedColumn.getZ(),
+                () -> translateChunk(session, mergedColumn, biomeData, isNonFullChunk, cachedBlockEntities));
+    }
 
-                // Estimate chunk size
-                int size = 0;
-                for (int i = 0; i < sectionCount; i++) {
-                    ChunkSection section = sections[i];
-                    size += (section != null ? section : session.getBlockTranslator().getEmptyChunkSection()).estimateNetworkSize();
-                }
-                size += 256; // Biomes
-                size += 1; // Border blocks
-                size += 1; // Extra data length (always 0)
-                size += chunkData.getBlockEntities().length * 64; // Conservative estimate of 64 bytes per tile entity
-
-                // Allocate output buffer
-                ByteBuf byteBuf = ByteBufAllocator.DEFAULT.buffer(size);
-                byte[] payload;
-                try {
-                    for (int i = 0; i < sectionCount; i++) {
-                        ChunkSection section = sections[i];
-                        (section != null ? section : session.getBlockTranslator().getEmptyChunkSection()).writeToNetwork(byteBuf);
-                    }
+    private LevelChunkPacket translateChunk(RorySession session, Column mergedColumn, int[] biomeData, boolean isNonFullChunk,
+                                            byte[] cachedBlockEntities) {
+        ChunkUtils.ChunkData chunkData = ChunkUtils.translateToBedrock(session, mergedColumn, isNonFullChunk);
+        byte[][] sections = chunkData.getSections();
 
-                    byteBuf.writeBytes(BiomeTranslator.toBedrockBiome(mergedColumn.getBiomeData())); // Biomes - 256 bytes
-                    byteBuf.writeByte(0); // Border blocks - Edu edition only
-                    VarInts.writeUnsignedInt(byteBuf, 0); // extra data length, 0 for now
+        // Find highest section
+        int sectionCount = sections.length - 1;
+        while (sectionCount >= 0 && sections[sectionCount] == null) {
+            sectionCount--;
+        }
+        sectionCount++;
+
+        LevelChunkPacket levelChunkPacket = new LevelChunkPacket();
+        levelChunkPacket.setSubChunksLength(sectionCount);
+        levelChunkPacket.setChunkX(mergedColumn.getX());
+        levelChunkPacket.setChunkZ(mergedColumn.getZ());
+
+        ChunkBlobCache blobCache = session.getChunkBlobCache();
+        boolean useBlobCache = blobCache.isEnabled();
+
+        byte[] biomes = BiomeTranslator.toBedrockBiome(biomeData);
+        // Block entities are encoded first, so the payload can be allocated at its exact size and written only once
+        byte[] blockEntities = encodeBlockEntities(session, mergedColumn, chunkData.getBlockEntities(), cachedBlockEntities);
+
+        int size = 0;
+        if (useBlobCache) {
+            // Each section and the biomes are sent as a blob ID - the client will ask for any it doesn't have
+            for (int i = 0; i < sectionCount; i++) {
+                byte[] section = sections[i];
+                levelChunkPacket.getBlobIds().add(blobCache.addBlob(section != null ? section : session.getBlockTranslator().getEmptyChunkSectionData()));
+            }
+            levelChunkPacket.getBlobIds().add(blobCache.addBlob(biomes));
+        } else {
+            for (int i = 0; i < sectionCount; i++) {
+                byte[] section = sections[i];
+                size += (section != null ? section : session.getBlockTranslator().getEmptyChunkSectionData()).length;
+            }
+            size += biomes.length;
+        }
+        size += 1; // Border blocks
+        size += 1; // Extra data length (always 0)
+        size += blockEntities.length;
+
+        // The protocol library only accepts a byte[], so write straight into it rather than copying from a buffer
+        byte[] payload = new byte[size];
+        ByteBuf byteBuf = Unpooled.wrappedBuffer(payload);
+        byteBuf.writerIndex(0);
+
+        if (!useBlobCache) {
+            for (int i = 0; i < sectionCount; i++) {
+                byte[] section = sections[i];
+                byteBuf.writeBytes(section != null ? section : session.getBlockTranslator().getEmptyChunkSectionData());
+            }
+            byteBuf.writeBytes(biomes); // Biomes - 256 bytes
+        }
+        byteBuf.writeByte(0); // Border blocks - Edu edition only
+        VarInts.writeUnsignedInt(byteBuf, 0); // extra data length, 0 for now
+        byteBuf.writeBytes(blockEntities);
+
+        levelChunkPacket.setCachingEnabled(useBlobCache);
+        levelChunkPacket.setData(payload);
+        return levelChunkPacket;
+    }
 
-                    // Encode tile entities into buffer
-                    NBTOutputStream nbtStream = NbtUtils.createNetworkWriter(new ByteBufOutputStream(byteBuf));
-                    for (NbtMap blockEntity : chunkData.getBlockEntities()) {
-                        nbtStream.writeTag(blockEntity);
+    /**
+     * Encode the block entities of a column. The ones translated from Java block entities are also encoded per section
+     * and stored in the chunk cache, so the Java block entities don't need to be kept to send the column again.
+     *
+     * @param blockEntities the translated block entities, starting with those translated from the column's Java block
+     *                      entities in the same order
+     * @param cachedBlockEntities encoded block entities to add, which were translated before
+     */
+    private byte[] encodeBlockEntities(RorySession session, Column column, NbtMap[] blockEntities, byte[] cachedBlockEntities) {
+        CompoundTag[] javaBlockEntities = column.getTileEntities();
+        byte[][] sectionBlockEntities = new byte[column.getChunks().length][];
+        List<CompoundTag> untranslated = new ArrayList<>();
+
+        ByteBuf byteBuf = ByteBufAllocator.DEFAULT.buffer(blockEntities.length * 64 + cachedBlockEntities.length); // Conservative estimate of 64 bytes per tile entity
+        try {
+            NBTOutputStream nbtStream = NbtUtils.createNetworkWriter(new ByteBufOutputStream(byteBuf));
+            for (int sectionY = 0; sectionY < sectionBlockEntities.length; sectionY++) {
+                int start = byteBuf.writerIndex();
+                for (int i = 0; i < javaBlockEntities.length; i++) {
+                    if (getSectionY(javaBlockEntities[i]) == sectionY && !isLectern(javaBlockEntities[i])) {
+                        nbtStream.writeTag(blockEntities[i]);
                     }
+                }
+                if (byteBuf.writerIndex() > start) {
+                    sectionBlockEntities[sectionY] = new byte[byteBuf.writerIndex() - start];
+                    byteBuf.getBytes(start, sectionBlockEntities[sectionY]);
+                }
+            }
 
-                    // Copy data into byte[], because the protocol lib really likes things that are s l o w
-                    byteBuf.readBytes(payload = new byte[byteBuf.readableBytes()]);
-                } finally {
-                    byteBuf.release(); // Release buffer to allow buffer pooling to be useful
+            for (int i = 0; i < javaBlockEntities.length; i++) {
+                int sectionY = getSectionY(javaBlockEntities[i]);
+                if (sectionY < 0 || sectionY >= sectionBlockEntities.length || isLectern(javaBlockEntities[i])) {
+                    // Lectern books are looked up on the server every time they are translated
+                    nbtStream.writeTag(blockEntities[i]);
+                    untranslated.add(javaBlockEntities[i]);
                 }
+            }
+            // Bedrock-only block entities are found from the blocks, which are translated every time
+            for (int i = javaBlockEntities.length; i < blockEntities.length; i++) {
+                nbtStream.writeTag(blockEntities[i]);
+            }
+            byteBuf.writeBytes(cachedBlockEntities);
 
-                LevelChunkPacket levelChunkPacket = new LevelChunkPacket();
-                levelChunkPacket.setSubChunksLength(sectionCount);
-                levelChunkPacket.setCachingEnabled(false);
-                levelChunkPacket.setChunkX(mergedColumn.getX());
-                levelChunkPacket.setChunkZ(mergedColumn.getZ());
-                levelChunkPacket.setData(payload);
-                session.sendUpstreamPacket(levelChunkPacket);
-            } catch (Exception ex) {
-                ex.printStackTrace();
+            byte[] data = new byte[byteBuf.readableBytes()];
+            byteBuf.readBytes(data);
+
+            if (cacheChunks) {
+                CompoundTag[] untranslatedBlockEntities = untranslated.toArray(new CompoundTag[0]);
+                session.executeInEventLoop(() -> session.getChunkCache().storeTranslatedBlockEntities(column.getX(), column.getZ(),
+                        javaBlockEntities, sectionBlockEntities, untranslatedBlockEntities));
             }
-        });
+            return data;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            byteBuf.release(); // Release buffer to allow buffer pooling to be useful
+        }
+    }
+
+    private static int getSectionY(CompoundTag blockEntity) {
+        return (int) blockEntity.get("y").getValue() >> 4;
+    }
+
+    private static boolean isLectern(CompoundTag blockEntity) {
+        return blockEntity.contains("id") && "minecraft:lectern".equals(blockEntity.get("id").getValue());
     }
 }
@@ -39,6 +39,8 @@ public class JavaUnloadChunkTranslator extends PacketTranslator<ServerUnloadChun
     @Override
     public void translate(ServerUnloadChunkPacket packet, RorySession session) {
         session.getChunkCache().removeChunk(packet.getX(), packet.getZ());
+        // Don't bother translating the chunk if it hasn't been sent yet
+        session.getChunkTranslationQueue().remove(packet.getX(), packet.getZ());
 
         //Checks if a skull is in an unloaded chunk then removes it
         Iterator<Vector3i> iterator = session.getSkullCache().keySet().iterator();
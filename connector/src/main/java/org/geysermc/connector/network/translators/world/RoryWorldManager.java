@@ -26,7 +26,6 @@
 package org.geysermc.connector.network.translators.world;
 
 import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
-import com.github.steveice10.mc.protocol.data.game.chunk.Column;
 import com.github.steveice10.mc.protocol.data.game.entity.player.GameMode;
 import com.github.steveice10.mc.protocol.data.game.setting.Difficulty;
 import com.github.steveice10.mc.protocol.packet.ingame.client.ClientChatPacket;
@@ -35,6 +34,7 @@ import com.nukkitx.nbt.NbtMapBuilder;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import org.geysermc.connector.network.session.RorySession;
+import org.geysermc.connector.network.session.cache.CachedChunkSection;
 import org.geysermc.connector.network.session.cache.ChunkCache;
 import org.geysermc.connector.network.translators.inventory.translators.LecternInventoryTranslator;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
@@ -56,9 +56,8 @@ public class RoryWorldManager extends WorldManager {
     @Override
     public void getBlocksInSection(RorySession session, int x, int y, int z, Chunk chunk) {
         ChunkCache chunkCache = session.getChunkCache();
-        Column cachedColumn;
-        Chunk cachedChunk;
-        if (chunkCache == null || (cachedColumn = chunkCache.getChunk(x, z)) == null || (cachedChunk = cachedColumn.getChunks()[y]) == null) {
+        CachedChunkSection cachedSection;
+        if (chunkCache == null || (cachedSection = chunkCache.getSection(x, y, z)) == null) {
             return;
         }
 
@@ -66,7 +65,7 @@ public class RoryWorldManager extends WorldManager {
         for (int blockY = 0; blockY < 16; blockY++) { // Cache-friendly iteration order
             for (int blockZ = 0; blockZ < 16; blockZ++) {
                 for (int blockX = 0; blockX < 16; blockX++) {
-                    chunk.set(blockX, blockY, blockZ, cachedChunk.get(blockX, blockY, blockZ));
+                    chunk.set(blockX, blockY, blockZ, cachedSection.get((blockY << 8) | (blockZ << 4) | blockX));
                 }
             }
         }
@@ -83,9 +82,9 @@ public class RoryWorldManager extends WorldManager {
         if (session.getConnector().getConfig().isCacheChunks()) {
             ChunkCache chunkCache = session.getChunkCache();
             if (chunkCache != null) { // Chunk cache can be null if the session is closed asynchronously
-                Column column = chunkCache.getChunk(x, z);
-                if (column != null) { // Column can be null if the server sent a partial chunk update before the first ground-up-continuous one
-                    return column.getBiomeData();
+                int[] biomeData = chunkCache.getBiomeData(x, z);
+                if (biomeData != null) { // Biome data can be null if the server sent a partial chunk update before the first ground-up-continuous one
+                    return biomeData;
                 }
             }
         }
@@ -60,7 +60,10 @@ public abstract class BlockTranslator {
     private final int bedrockAirId;
     private final int bedrockWaterId;
 
-    private final Int2IntMap javaToBedrockBlockMap = new Int2IntOpenHashMap();
+    /**
+     * Bedrock runtime IDs indexed by Java runtime ID
+     */
+    private final int[] javaToBedrockBlockIds;
     private final Int2IntMap bedrockToJavaBlockMap = new Int2IntOpenHashMap();
 
     private final NbtList<NbtMap> bedrockBlockStates;
@@ -71,7 +74,19 @@ public abstract class BlockTranslator {
      */
     private static final Object2ObjectMap<String, String> JAVA_TO_BEDROCK_IDENTIFIERS = new Object2ObjectOpenHashMap<>();
     private static final BiMap<String, Integer> JAVA_ID_BLOCK_MAP = HashBiMap.create();
-    private static final IntSet WATERLOGGED = new IntOpenHashSet();
+
+    /**
+     * The Java block state is waterlogged, and needs water on the second Bedrock layer
+     */
+    public static final byte FLAG_WATERLOGGED = 1;
+    /**
+     * The Java block state is a block entity only on Bedrock, such as a flower pot or a piston
+     */
+    public static final byte FLAG_BEDROCK_ONLY_BLOCK_ENTITY = 1 << 1;
+    /**
+     * Flags of every Java block state, indexed by Java runtime ID
+     */
+    private static final byte[] JAVA_STATE_FLAGS;
     private final Object2IntMap<NbtMap> itemFrames = new Object2IntOpenHashMap<>();
     private final Map<String, NbtMap> flowerPotBlocks = new HashMap<>();
 
@@ -123,6 +138,7 @@ public abstract class BlockTranslator {
         int spawnerRuntimeId = -1;
         int uniqueJavaId = -1;
         int waterRuntimeId = -1;
+        byte[] javaStateFlags = new byte[BLOCKS_JSON.size()];
         Iterator<Map.Entry<String, JsonNode>> blocksIterator = BLOCKS_JSON.fields();
         while (blocksIterator.hasNext()) {
             javaRuntimeId++;
@@ -164,6 +180,13 @@ public abstract class BlockTranslator {
 
             BlockStateValues.storeBlockStateValues(entry.getKey(), javaRuntimeId, entry.getValue());
 
+            if (isWaterloggedIdentifier(javaId)) {
+                javaStateFlags[javaRuntimeId] |= FLAG_WATERLOGGED;
+            }
+            if (BlockStateValues.getFlowerPotValues().containsKey(javaRuntimeId) || BlockStateValues.getPistonValues().containsKey(javaRuntimeId)) {
+                javaStateFlags[javaRuntimeId] |= FLAG_BEDROCK_ONLY_BLOCK_ENTITY;
+            }
+
             String cleanJavaIdentifier = entry.getKey().split("\\[")[0];
             String bedrockIdentifier = entry.getValue().get("bedrock_identifier").asText();
 
@@ -226,6 +249,8 @@ public abstract class BlockTranslator {
         }
         JAVA_WATER_ID = waterRuntimeId;
 
+        JAVA_STATE_FLAGS = javaStateFlags;
+
         BlockMapping.AIR = JAVA_RUNTIME_ID_TO_BLOCK_MAPPING.get(JAVA_AIR_ID);
 
         BlockTranslator1_16_100.init();
@@ -264,6 +289,7 @@ public abstract class BlockTranslator {
         int commandBlockRuntimeId = -1;
         int javaRuntimeId = -1;
         int waterRuntimeId = -1;
+        int[] javaToBedrockBlockIds = new int[BLOCKS_JSON.size()];
         Iterator<Map.Entry<String, JsonNode>> blocksIterator = BLOCKS_JSON.fields();
         while (blocksIterator.hasNext()) {
             javaRuntimeId++;
@@ -288,12 +314,8 @@ public abstract class BlockTranslator {
                     break;
             }
 
-            boolean waterlogged = entry.getKey().contains("waterlogged=true")
-                    || javaId.contains("minecraft:bubble_column") || javaId.contains("minecraft:kelp") || javaId.contains("seagrass");
-
-            if (waterlogged) {
+            if (isWaterlogged(javaRuntimeId)) {
                 bedrockToJavaBlockMap.putIfAbsent(bedrockRuntimeId | 1 << 31, javaRuntimeId);
-                WATERLOGGED.add(javaRuntimeId);
             } else {
                 bedrockToJavaBlockMap.putIfAbsent(bedrockRuntimeId, javaRuntimeId);
             }
@@ -309,8 +331,9 @@ public abstract class BlockTranslator {
                 javaIdentifierToBedrockTag.put(cleanJavaIdentifier, blockTag);
             }
 
-            javaToBedrockBlockMap.put(javaRuntimeId, bedrockRuntimeId);
+            javaToBedrockBlockIds[javaRuntimeId] = bedrockRuntimeId;
         }
+        this.javaToBedrockBlockIds = javaToBedrockBlockIds;
 
         if (commandBlockRuntimeId == -1) {
             throw new AssertionError("Unable to find command block in palette");
@@ -381,7 +404,10 @@ public abstract class BlockTranslator {
     }
 
     public int getBedrockBlockId(int state) {
-        return javaToBedrockBlockMap.get(state);
+        if (state < 0 || state >= javaToBedrockBlockIds.length) {
+            return 0;
+        }
+        return javaToBedrockBlockIds[state];
     }
 
     public int getJavaBlockState(int bedrockId) {
@@ -439,6 +465,13 @@ public abstract class BlockTranslator {
         return emptyChunkProvider.getEmptySection();
     }
 
+    /**
+     * @return the network-serialized form of {@link #getEmptyChunkSection()}
+     */
+    public byte[] getEmptyChunkSectionData() {
+        return emptyChunkProvider.getEmptySectionData();
+    }
+
     /**
      * @param javaId the Java string identifier to search for
      * @return the Java block state integer, or {@link #JAVA_AIR_ID} if there is no valid entry.
@@ -447,8 +480,39 @@ public abstract class BlockTranslator {
         return JAVA_ID_BLOCK_MAP.getOrDefault(javaId, JAVA_AIR_ID);
     }
 
+    /**
+     * @param state the Java block state to look up
+     * @return the flags of this block state, or 0 if there is no valid entry.
+     */
+    public static byte getJavaStateFlags(int state) {
+        if (state < 0 || state >= JAVA_STATE_FLAGS.length) {
+            return 0;
+        }
+        return JAVA_STATE_FLAGS[state];
+    }
+
     public static boolean isWaterlogged(int state) {
-        return WATERLOGGED.contains(state);
+        return (getJavaStateFlags(state) & FLAG_WATERLOGGED) != 0;
+    }
+
+    /**
+     * @param state the Java block state to look up
+     * @return true if this block state needs a block entity on Bedrock but not on Java
+     */
+    public static boolean isBedrockOnlyBlockEntity(int state) {
+        return (getJavaStateFlags(state) & FLAG_BEDROCK_ONLY_BLOCK_ENTITY) != 0;
+    }
+
+    private static boolean isWaterloggedIdentifier(String javaId) {
+        return javaId.contains("waterlogged=true")
+                || javaId.contains("minecraft:bubble_column") || javaId.contains("minecraft:kelp") || javaId.contains("seagrass");
+    }
+
+    /**
+     * @return the amount of Java block states, which is one more than the highest Java runtime ID
+     */
+    public static int getJavaBlockStateCount() {
+        return JAVA_STATE_FLAGS.length;
     }
 
     public static BiMap<String, Integer> getJavaIdBlockMap() {
@@ -33,6 +33,7 @@ import com.nukkitx.nbt.NbtMap;
 import com.nukkitx.nbt.NbtMapBuilder;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import org.geysermc.connector.RoryConnector;
+import org.geysermc.connector.network.translators.world.block.BlockTranslator;
 import org.geysermc.connector.utils.BlockEntityUtils;
 import org.geysermc.connector.utils.FileUtils;
 import org.geysermc.connector.utils.LanguageUtils;
@@ -51,6 +52,10 @@ public abstract class BlockEntityTranslator {
      * This list will be smaller with cache chunks on as we don't need to double-cache data
      */
     public static final ObjectArrayList<RequiresBlockState> REQUIRES_BLOCK_STATE_LIST = new ObjectArrayList<>();
+    /**
+     * The entry of {@link #REQUIRES_BLOCK_STATE_LIST} that applies to each Java block state, indexed by Java runtime ID
+     */
+    private static final RequiresBlockState[] REQUIRES_BLOCK_STATE_BY_STATE;
 
     /**
      * Contains a list of irregular block entity name translations that can't be fit into the regex
@@ -100,6 +105,27 @@ public abstract class BlockEntityTranslator {
                 RoryConnector.getInstance().getLogger().error(LanguageUtils.getLocaleStringLog("geyser.network.translator.block_state.failed", clazz.getCanonicalName()));
             }
         }
+
+        REQUIRES_BLOCK_STATE_BY_STATE = new RequiresBlockState[BlockTranslator.getJavaBlockStateCount()];
+        for (int blockState = 0; blockState < REQUIRES_BLOCK_STATE_BY_STATE.length; blockState++) {
+            for (RequiresBlockState requiresBlockState : REQUIRES_BLOCK_STATE_LIST) {
+                if (requiresBlockState.isBlock(blockState)) {
+                    REQUIRES_BLOCK_STATE_BY_STATE[blockState] = requiresBlockState;
+                    break; // No block will be a part of two classes
+                }
+            }
+        }
+    }
+
+    /**
+     * @param blockState the Java block state to look up
+     * @return the block entity that requires this block state, or null if there is none
+     */
+    public static RequiresBlockState getRequiresBlockState(int blockState) {
+        if (blockState < 0 || blockState >= REQUIRES_BLOCK_STATE_BY_STATE.length) {
+            return null;
+        }
+        return REQUIRES_BLOCK_STATE_BY_STATE[blockState];
     }
 
     public abstract void translateTag(NbtMapBuilder builder, CompoundTag tag, int blockState);
@@ -130,7 +130,8 @@ public class SkullBlockEntityTranslator extends BlockEntityTranslator implements
         Vector3f entityRotation = Vector3f.from(rotation, 0, rotation);
         long geyserId = session.getEntityCache().getNextEntityId().incrementAndGet();
 
-        getProfile(tag).whenComplete((gameProfile, throwable) -> {
+        // The profile may be looked up on another thread
+        getProfile(tag).whenComplete((gameProfile, throwable) -> session.executeInEventLoop(() -> {
             if (gameProfile == null) {
                 session.getConnector().getLogger().debug("Custom skull with invalid SkullOwner tag: " + blockPosition.toString() + " " + tag.toString());
                 return;
@@ -152,12 +153,12 @@ public class SkullBlockEntityTranslator extends BlockEntityTranslator implements
             if (session.getUpstream().isInitialized()) {
                 player.spawnEntity(session);
 
-                SkullSkinManager.requestAndHandleSkin(player, session, (skin -> session.getConnector().getGeneralThreadPool().schedule(() -> {
+                SkullSkinManager.requestAndHandleSkin(player, session, (skin -> session.getEventLoop().schedule(() -> {
                     // Delay to minimize split-second "player" pop-in
                     player.getMetadata().getFlags().setFlag(EntityFlag.INVISIBLE, false);
                     player.updateBedrockMetadata(session);
                 }, 250, TimeUnit.MILLISECONDS)));
             }
-        });
+        }));
     }
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.BitStorage;
+import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArray;
+import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArrayVersion;
+
+/**
+ * Converts Java chunk section storage into Bedrock storage a whole word at a time.
+ *
+ * Java stores blocks in YZX order in 64-bit words, whereas Bedrock stores them in XZY order in 32-bit words.
+ * Rather than getting and setting each of the 4096 blocks individually, the Java words are unpacked into a flat
+ * array first, and the Bedrock words are then built directly from that array through a lookup table.
+ */
+public class ChunkSectionTranspose {
+    /**
+     * Maps an XZY index to its YZX index. As this only swaps the X and Y nibbles, it also maps YZX to XZY.
+     */
+    private static final int[] XZY_TO_YZX = new int[BlockStorage.SIZE];
+
+    static {
+        for (int i = 0; i < BlockStorage.SIZE; i++) {
+            XZY_TO_YZX[i] = (i >> 8) | (i & 0x0F0) | ((i & 0x00F) << 8);
+        }
+    }
+
+    /**
+     * @param index an index in YZX order
+     * @return the same index in XZY order
+     */
+    public static int yzxToXzy(int index) {
+        return XZY_TO_YZX[index];
+    }
+
+    /**
+     * Unpack every entry of a Java section's storage, in YZX order.
+     *
+     * @param storage the Java storage to read
+     * @param out an array of at least {@link BlockStorage#SIZE} entries to write to
+     */
+    public static void unpack(BitStorage storage, int[] out) {
+        long[] data = storage.getData();
+        switch (storage.getBitsPerEntry()) {
+            case 4:
+                unpack4(data, out);
+                break;
+            case 8:
+                unpack8(data, out);
+                break;
+            default:
+                unpackPadded(data, storage.getBitsPerEntry(), out);
+                break;
+        }
+    }
+
+    /**
+     * Pack entries in YZX order into a Bedrock bit array, converting them to XZY order.
+     *
+     * @param values the entries in YZX order, as given by {@link #unpack(BitStorage, int[])}
+     * @param bitArray an empty Bedrock bit array of {@link BlockStorage#SIZE} entries
+     */
+    public static void packTransposed(int[] values, BitArray bitArray) {
+        int[] words = bitArray.getWords();
+        BitArrayVersion version = bitArray.getVersion();
+        switch (version) {
+            case V4:
+                pack4(values, words);
+                break;
+            case V8:
+                pack8(values, words);
+                break;
+            default:
+                packPadded(values, version.getId(), words);
+                break;
+        }
+    }
+
+    private static void unpack4(long[] data, int[] out) {
+        for (int i = 0; i < 256; i++) {
+            long word = data[i];
+            int index = i << 4;
+            out[index] = (int) (word & 0xFL);
+            out[index + 1] = (int) ((word >>> 4) & 0xFL);
+            out[index + 2] = (int) ((word >>> 8) & 0xFL);
+            out[index + 3] = (int) ((word >>> 12) & 0xFL);
+            out[index + 4] = (int) ((word >>> 16) & 0xFL);
+            out[index + 5] = (int) ((word >>> 20) & 0xFL);
+            out[index + 6] = (int) ((word >>> 24) & 0xFL);
+            out[index + 7] = (int) ((word >>> 28) & 0xFL);
+            out[index + 8] = (int) ((word >>> 32) & 0xFL);
+            out[index + 9] = (int) ((word >>> 36) & 0xFL);
+            out[index + 10] = (int) ((word >>> 40) & 0xFL);
+            out[index + 11] = (int) ((word >>> 44) & 0xFL);
+            out[index + 12] = (int) ((word >>> 48) & 0xFL);
+            out[index + 13] = (int) ((word >>> 52) & 0xFL);
+            out[index + 14] = (int) ((word >>> 56) & 0xFL);
+            out[index + 15] = (int) (word >>> 60);
+        }
+    }
+
+    private static void unpack8(long[] data, int[] out) {
+        for (int i = 0; i < 512; i++) {
+            long word = data[i];
+            int index = i << 3;
+            out[index] = (int) (word & 0xFFL);
+            out[index + 1] = (int) ((word >>> 8) & 0xFFL);
+            out[index + 2] = (int) ((word >>> 16) & 0xFFL);
+            out[index + 3] = (int) ((word >>> 24) & 0xFFL);
+            out[index + 4] = (int) ((word >>> 32) & 0xFFL);
+            out[index + 5] = (int) ((word >>> 40) & 0xFFL);
+            out[index + 6] = (int) ((word >>> 48) & 0xFFL);
+            out[index + 7] = (int) (word >>> 56);
+        }
+    }
+
+    /**
+     * Java entries never span two longs; any bits left over at the end of a long are padding.
+     */
+    private static void unpackPadded(long[] data, int bitsPerEntry, int[] out) {
+        int valuesPerLong = 64 / bitsPerEntry;
+        long mask = (1L << bitsPerEntry) - 1L;
+        int index = 0;
+        for (long word : data) {
+            for (int i = 0; i < valuesPerLong && index < BlockStorage.SIZE; i++) {
+                out[index++] = (int) (word & mask);
+                word >>>= bitsPerEntry;
+            }
+        }
+    }
+
+    private static void pack4(int[] values, int[] words) {
+        for (int i = 0; i < 512; i++) {
+            int index = i << 3;
+            words[i] = values[XZY_TO_YZX[index]]
+                    | values[XZY_TO_YZX[index + 1]] << 4
+                    | values[XZY_TO_YZX[index + 2]] << 8
+                    | values[XZY_TO_YZX[index + 3]] << 12
+                    | values[XZY_TO_YZX[index + 4]] << 16
+                    | values[XZY_TO_YZX[index + 5]] << 20
+                    | values[XZY_TO_YZX[index + 6]] << 24
+                    | values[XZY_TO_YZX[index + 7]] << 28;
+        }
+    }
+
+    private static void pack8(int[] values, int[] words) {
+        for (int i = 0; i < 1024; i++) {
+            int index = i << 2;
+            words[i] = values[XZY_TO_YZX[index]]
+                    | values[XZY_TO_YZX[index + 1]] << 8
+                    | values[XZY_TO_YZX[index + 2]] << 16
+                    | values[XZY_TO_YZX[index + 3]] << 24;
+        }
+    }
+
+    /**
+     * Works for every Bedrock bit array version, as entries never span two words in either layout.
+     */
+    private static void packPadded(int[] values, int bitsPerEntry, int[] words) {
+        int valuesPerWord = 32 / bitsPerEntry;
+        int index = 0;
+        for (int i = 0; i < words.length; i++) {
+            int word = 0;
+            for (int j = 0; j < valuesPerWord && index < BlockStorage.SIZE; j++) {
+                word |= values[XZY_TO_YZX[index++]] << (j * bitsPerEntry);
+            }
+            words[i] = word;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import com.nukkitx.protocol.bedrock.BedrockPacket;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import org.geysermc.connector.network.session.RorySession;
+import org.geysermc.connector.utils.MathUtils;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Orders chunk translation for a single session on the connector's chunk thread pool.
+ *
+ * Chunks are translated one at a time per session, in the order they were received. A chunk that is received again
+ * before its previous version was translated replaces the previous version, and a chunk that is unloaded before it
+ * was translated is dropped entirely. If too many chunks are queued, they are translated on the calling
+ * (network) thread instead, which slows down reading from the Java server until we've caught up.
+ */
+public class ChunkTranslationQueue {
+    private static final long NO_CHUNK = Long.MIN_VALUE;
+
+    private static final AtomicLong COALESCED_CHUNKS = new AtomicLong();
+    private static final AtomicLong DROPPED_CHUNKS = new AtomicLong();
+    private static final AtomicLong INLINE_CHUNKS = new AtomicLong();
+
+    private final RorySession session;
+    private final Executor executor;
+    private final int maxQueuedChunks;
+
+    /**
+     * Chunks waiting to be translated, in the order they were received. Guarded by this object.
+     */
+    private final Long2ObjectLinkedOpenHashMap<Supplier<BedrockPacket>> pendingChunks = new Long2ObjectLinkedOpenHashMap<>();
+    /**
+     * The chunk currently being translated on the thread pool, or {@link #NO_CHUNK}
+     */
+    private long translatingChunk = NO_CHUNK;
+    /**
+     * If the chunk currently being translated was unloaded in the meantime
+     */
+    private boolean translatingChunkUnloaded = false;
+    /**
+     * If a task is submitted to the thread pool to work through this queue
+     */
+    private boolean scheduled = false;
+
+    public ChunkTranslationQueue(RorySession session, Executor executor, int maxQueuedChunks) {
+        this.session = session;
+        this.executor = executor;
+        this.maxQueuedChunks = maxQueuedChunks;
+    }
+
+    /**
+     * Queue a chunk to be translated.
+     *
+     * @param chunkX the X coordinate of the chunk
+     * @param chunkZ the Z coordinate of the chunk
+     * @param translator translates the chunk into the packet to send to the client
+     */
+    public void submit(int chunkX, int chunkZ, Supplier<BedrockPacket> translator) {
+        long chunkPosition = MathUtils.chunkPositionToLong(chunkX, chunkZ);
+        synchronized (this) {
+            if (pendingChunks.containsKey(chunkPosition)) {
+                // The previous version of this chunk hasn't been translated yet; it's no longer needed
+                pendingChunks.put(chunkPosition, translator);
+                COALESCED_CHUNKS.incrementAndGet();
+                return;
+            }
+
+            // A chunk that is currently being translated must be queued regardless, so the versions are sent in order
+            if (pendingChunks.size() < maxQueuedChunks || chunkPosition == translatingChunk) {
+                pendingChunks.put(chunkPosition, translator);
+                if (!scheduled) {
+                    scheduled = true;
+                    executor.execute(this::translateNext);
+                }
+                return;
+            }
+        }
+
+        // Queue is full - translate on this thread to slow down the server connection
+        INLINE_CHUNKS.incrementAndGet();
+        translate(translator);
+    }
+
+    /**
+     * Drop a chunk from the queue, if it hasn't been translated yet.
+     *
+     * @param chunkX the X coordinate of the chunk
+     * @param chunkZ the Z coordinate of the chunk
+     */
+    public synchronized void remove(int chunkX, int chunkZ) {
+        long chunkPosition = MathUtils.chunkPositionToLong(chunkX, chunkZ);
+        if (pendingChunks.remove(chunkPosition) != null) {
+            DROPPED_CHUNKS.incrementAndGet();
+        }
+        if (translatingChunk == chunkPosition) {
+            translatingChunkUnloaded = true;
+        }
+    }
+
+    /**
+     * Drop all chunks that have not been translated yet.
+     */
+    public synchronized void clear() {
+        DROPPED_CHUNKS.addAndGet(pendingChunks.size());
+        pendingChunks.clear();
+        translatingChunkUnloaded = true;
+    }
+
+    /**
+     * @return the amount of chunks waiting to be translated
+     */
+    public synchronized int size() {
+        return pendingChunks.size();
+    }
+
+    private void translateNext() {
+        Supplier<BedrockPacket> translator;
+        synchronized (this) {
+            if (pendingChunks.isEmpty()) {
+                scheduled = false;
+                return;
+            }
+            translatingChunk = pendingChunks.firstLongKey();
+            translatingChunkUnloaded = false;
+            translator = pendingChunks.removeFirst();
+        }
+
+        BedrockPacket packet = null;
+        try {
+            packet = translator.get();
+        } catch (Throwable t) {
+            session.getConnector().getLogger().error("Error translating chunk", t);
+        }
+
+        synchronized (this) {
+            if (packet != null && !translatingChunkUnloaded) {
+                session.sendUpstreamPacket(packet);
+            }
+            translatingChunk = NO_CHUNK;
+
+            if (pendingChunks.isEmpty()) {
+                scheduled = false;
+            } else {
+                // Resubmit rather than loop, so other sessions get their turn on the pool
+                executor.execute(this::translateNext);
+            }
+        }
+    }
+
+    private void translate(Supplier<BedrockPacket> translator) {
+        try {
+            BedrockPacket packet = translator.get();
+            if (packet != null) {
+                session.sendUpstreamPacket(packet);
+            }
+        } catch (Throwable t) {
+            session.getConnector().getLogger().error("Error translating chunk", t);
+        }
+    }
+
+    /**
+     * @return how many chunks were replaced by a newer version before being translated, across all sessions
+     */
+    public static long getCoalescedChunks() {
+        return COALESCED_CHUNKS.get();
+    }
+
+    /**
+     * @return how many chunks were unloaded before being translated, across all sessions
+     */
+    public static long getDroppedChunks() {
+        return DROPPED_CHUNKS.get();
+    }
+
+    /**
+     * @return how many chunks were translated on the network thread because the queue was full, across all sessions
+     */
+    public static long getInlineChunks() {
+        return INLINE_CHUNKS.get();
+    }
+}
@@ -29,6 +29,7 @@ import com.nukkitx.nbt.NBTOutputStream;
 import com.nukkitx.nbt.NbtMap;
 import com.nukkitx.nbt.NbtUtils;
 import lombok.Getter;
+import org.geysermc.connector.utils.ChunkUtils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -38,10 +39,13 @@ public class EmptyChunkProvider {
     private final byte[] emptyLevelChunkData;
     @Getter
     private final ChunkSection emptySection;
+    @Getter
+    private final byte[] emptySectionData;
 
     public EmptyChunkProvider(int airId) {
         BlockStorage emptyStorage = new BlockStorage(airId);
         emptySection = new ChunkSection(new BlockStorage[]{emptyStorage});
+        emptySectionData = ChunkUtils.serializeSection(emptySection);
 
         try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
             outputStream.write(new byte[258]); // Biomes + Border Size + Extra Data Size
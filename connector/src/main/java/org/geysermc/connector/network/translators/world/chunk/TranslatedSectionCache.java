@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.Arrays;
+
+/**
+ * A connector-wide cache of serialized Bedrock chunk sections, keyed by the contents of the Java section they were
+ * translated from. Players that receive identical sections (for example, everyone standing in the same lobby) only
+ * need the section to be translated and serialized once.
+ */
+public class TranslatedSectionCache {
+    /**
+     * Rough overhead of a single cache entry, on top of the arrays it holds
+     */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final Cache<SectionKey, byte[]> cache;
+
+    /**
+     * @param maximumBytes the approximate amount of memory the cache may use before evicting the least recently used
+     *                     sections
+     */
+    public TranslatedSectionCache(long maximumBytes) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((SectionKey key, byte[] value) -> ENTRY_OVERHEAD + value.length + key.palette.length * 4 + key.words.length * 8)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param blockStateVersion the block state version of the block translator the section will be translated with
+     * @param bitsPerEntry the bits per entry of the Java section's storage
+     * @param palette the Java block states in the section's palette
+     * @param words the backing array of the Java section's storage
+     * @return the serialized Bedrock section, or null if it isn't cached
+     */
+    public byte[] get(int blockStateVersion, int bitsPerEntry, int[] palette, long[] words) {
+        return cache.getIfPresent(new SectionKey(blockStateVersion, bitsPerEntry, palette, words));
+    }
+
+    /**
+     * Store a serialized Bedrock section. The arrays are copied, as Java sections may be modified after they
+     * are translated.
+     */
+    public void put(int blockStateVersion, int bitsPerEntry, int[] palette, long[] words, byte[] serializedSection) {
+        cache.put(new SectionKey(blockStateVersion, bitsPerEntry, palette.clone(), words.clone()), serializedSection);
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getSize() {
+        return cache.size();
+    }
+
+    private static final class SectionKey {
+        private final int blockStateVersion;
+        private final int bitsPerEntry;
+        private final int[] palette;
+        private final long[] words;
+        private final int hashCode;
+
+        private SectionKey(int blockStateVersion, int bitsPerEntry, int[] palette, long[] words) {
+            this.blockStateVersion = blockStateVersion;
+            this.bitsPerEntry = bitsPerEntry;
+            this.palette = palette;
+            this.words = words;
+
+            int hash = 31 * blockStateVersion + bitsPerEntry;
+            hash = 31 * hash + Arrays.hashCode(palette);
+            this.hashCode = 31 * hash + Arrays.hashCode(words);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SectionKey)) return false;
+            SectionKey that = (SectionKey) o;
+            return hashCode == that.hashCode && blockStateVersion == that.blockStateVersion && bitsPerEntry == that.bitsPerEntry
+                    && Arrays.equals(palette, that.palette) && Arrays.equals(words, that.words);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
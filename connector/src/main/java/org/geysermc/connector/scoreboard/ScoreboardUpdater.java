@@ -31,10 +31,9 @@ import org.geysermc.connector.network.session.RorySession;
 import org.geysermc.connector.network.session.cache.WorldCache;
 import org.geysermc.connector.utils.LanguageUtils;
 
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class ScoreboardUpdater extends Thread {
+public class ScoreboardUpdater implements Runnable {
     public static final int FIRST_SCORE_PACKETS_PER_SECOND_THRESHOLD;
     public static final int SECOND_SCORE_PACKETS_PER_SECOND_THRESHOLD = 250;
 
@@ -55,11 +54,13 @@ public class ScoreboardUpdater extends Thread {
     private final AtomicInteger pendingPacketsPerSecond = new AtomicInteger(0);
 
     public ScoreboardUpdater(WorldCache worldCache) {
-        super("Scoreboard Updater");
         this.worldCache = worldCache;
         session = worldCache.getSession();
     }
 
+    /**
+     * Called every tick by the session.
+     */
     @Override
     public void run() {
         if (!session.isClosed()) {
@@ -100,8 +101,6 @@ public class ScoreboardUpdater extends Thread {
                     }
                 }
             }
-
-            session.getConnector().getGeneralThreadPool().schedule(this, 50, TimeUnit.MILLISECONDS);
         }
     }
 
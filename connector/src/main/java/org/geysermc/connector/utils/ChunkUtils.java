@@ -40,6 +40,8 @@ import com.nukkitx.nbt.NbtMap;
 import com.nukkitx.protocol.bedrock.packet.LevelChunkPacket;
 import com.nukkitx.protocol.bedrock.packet.NetworkChunkPublisherUpdatePacket;
 import com.nukkitx.protocol.bedrock.packet.UpdateBlockPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
@@ -51,6 +53,7 @@ import org.geysermc.connector.entity.ItemFrameEntity;
 import org.geysermc.connector.entity.player.SkullPlayerEntity;
 import org.geysermc.connector.network.session.RorySession;
 import org.geysermc.connector.network.translators.inventory.translators.LecternInventoryTranslator;
+import org.geysermc.connector.network.translators.world.WorldManager;
 import org.geysermc.connector.network.translators.world.block.BlockStateValues;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
 import org.geysermc.connector.network.translators.world.block.entity.BedrockOnlyBlockEntity;
@@ -59,6 +62,8 @@ import org.geysermc.connector.network.translators.world.block.entity.RequiresBlo
 import org.geysermc.connector.network.translators.world.block.entity.SkullBlockEntityTranslator;
 import org.geysermc.connector.network.translators.world.chunk.BlockStorage;
 import org.geysermc.connector.network.translators.world.chunk.ChunkSection;
+import org.geysermc.connector.network.translators.world.chunk.ChunkSectionTranspose;
+import org.geysermc.connector.network.translators.world.chunk.TranslatedSectionCache;
 import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArray;
 import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArrayVersion;
 
@@ -76,13 +81,14 @@ public class ChunkUtils {
      */
     public static final Object2IntMap<Position> CACHED_BLOCK_ENTITIES = new Object2IntOpenHashMap<>();
 
-    private static int indexYZXtoXZY(int yzx) {
-        return (yzx >> 8) | (yzx & 0x0F0) | ((yzx & 0x00F) << 8);
-    }
+    /**
+     * Scratch space for unpacking Java sections, so that each section doesn't allocate its own array
+     */
+    private static final ThreadLocal<int[]> UNPACKED_SECTION = ThreadLocal.withInitial(() -> new int[BlockStorage.SIZE]);
 
     public static ChunkData translateToBedrock(RorySession session, Column column, boolean isNonFullChunk) {
         Chunk[] javaSections = column.getChunks();
-        ChunkSection[] sections = new ChunkSection[javaSections.length];
+        byte[][] sections = new byte[javaSections.length][];
 
         // Temporarily stores compound tags of Bedrock-only block entities
         List<NbtMap> bedrockOnlyBlockEntities = new ArrayList<>();
@@ -96,6 +102,9 @@ public class ChunkUtils {
         boolean shouldCheckWorldManagerOnMissingSections = isNonFullChunk && worldManagerHasMoreBlockDataThanCache;
         Chunk temporarySection = null;
 
+        TranslatedSectionCache sectionCache = session.getConnector().getTranslatedSectionCache();
+        int[] javaBlocks = UNPACKED_SECTION.get();
+
         for (int sectionY = 0; sectionY < javaSections.length; sectionY++) {
             Chunk javaSection = javaSections[sectionY];
 
@@ -138,10 +147,11 @@ public class ChunkUtils {
             if (javaPalette instanceof GlobalPalette) {
                 // As this is the global palette, simply iterate through the whole chunk section once
                 ChunkSection section = new ChunkSection(session.getBlockTranslator().getBedrockAirId());
+                ChunkSectionTranspose.unpack(javaData, javaBlocks);
                 for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
-                    int javaId = javaData.get(yzx);
+                    int javaId = javaBlocks[yzx];
                     int bedrockId = session.getBlockTranslator().getBedrockBlockId(javaId);
-                    int xzy = indexYZXtoXZY(yzx);
+                    int xzy = ChunkSectionTranspose.yzxToXzy(yzx);
                     section.getBlockStorageArray()[0].setFullBlock(xzy, bedrockId);
 
                     if (BlockTranslator.isWaterlogged(javaId)) {
@@ -149,24 +159,26 @@ public class ChunkUtils {
                     }
 
                     // Check if block is piston or flower to see if we'll need to create additional block entities, as they're only block entities in Bedrock
-                    if (BlockStateValues.getFlowerPotValues().containsKey(javaId) || BlockStateValues.getPistonValues().containsKey(javaId)) {
+                    if (BlockTranslator.isBedrockOnlyBlockEntity(javaId)) {
                         bedrockOnlyBlockEntities.add(BedrockOnlyBlockEntity.getTag(session,
                                 Vector3i.from((column.getX() << 4) + (yzx & 0xF), (sectionY << 4) + ((yzx >> 8) & 0xF), (column.getZ() << 4) + ((yzx >> 4) & 0xF)),
                                 javaId
                         ));
                     }
                 }
-                sections[sectionY] = section;
+                sections[sectionY] = serializeSection(section);
                 continue;
             }
 
             IntList bedrockPalette = new IntArrayList(javaPalette.size());
+            int[] javaPaletteStates = new int[javaPalette.size()];
             waterloggedPaletteIds.clear();
             pistonOrFlowerPaletteIds.clear();
 
             // Iterate through palette and convert state IDs to Bedrock, doing some additional checks as we go
             for (int i = 0; i < javaPalette.size(); i++) {
                 int javaId = javaPalette.idToState(i);
+                javaPaletteStates[i] = javaId;
                 bedrockPalette.add(session.getBlockTranslator().getBedrockBlockId(javaId));
 
                 if (BlockTranslator.isWaterlogged(javaId)) {
@@ -174,17 +186,30 @@ public class ChunkUtils {
                 }
 
                 // Check if block is piston or flower to see if we'll need to create additional block entities, as they're only block entities in Bedrock
-                if (BlockStateValues.getFlowerPotValues().containsKey(javaId) || BlockStateValues.getPistonValues().containsKey(javaId)) {
+                if (BlockTranslator.isBedrockOnlyBlockEntity(javaId)) {
                     pistonOrFlowerPaletteIds.set(i);
                 }
             }
 
+            // Sections without Bedrock-only block entities translate the same way for everyone, so they can be shared
+            boolean cacheable = sectionCache != null && pistonOrFlowerPaletteIds.isEmpty();
+            if (cacheable) {
+                byte[] cachedSection = sectionCache.get(session.getBlockTranslator().getBlockStateVersion(),
+                        javaData.getBitsPerEntry(), javaPaletteStates, javaData.getData());
+                if (cachedSection != null) {
+                    sections[sectionY] = cachedSection;
+                    continue;
+                }
+            }
+
+            ChunkSectionTranspose.unpack(javaData, javaBlocks);
+
             // Add Bedrock-exclusive block entities
             // We only if the palette contained any blocks that are Bedrock-exclusive block entities to avoid iterating through the whole block data
             // for no reason, as most sections will not contain any pistons or flower pots
             if (!pistonOrFlowerPaletteIds.isEmpty()) {
                 for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
-                    int paletteId = javaData.get(yzx);
+                    int paletteId = javaBlocks[yzx];
                     if (pistonOrFlowerPaletteIds.get(paletteId)) {
                         bedrockOnlyBlockEntities.add(BedrockOnlyBlockEntity.getTag(session,
                                 Vector3i.from((column.getX() << 4) + (yzx & 0xF), (sectionY << 4) + ((yzx >> 8) & 0xF), (column.getZ() << 4) + ((yzx >> 4) & 0xF)),
@@ -199,24 +224,17 @@ public class ChunkUtils {
             BlockStorage[] layers;
 
             // Convert data array from YZX to XZY coordinate order
-            if (waterloggedPaletteIds.isEmpty()) {
-                // No blocks are waterlogged, simply convert coordinate order
-                // This could probably be optimized further...
-                for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
-                    bedrockData.set(indexYZXtoXZY(yzx), javaData.get(yzx));
-                }
+            ChunkSectionTranspose.packTransposed(javaBlocks, bedrockData);
 
+            if (waterloggedPaletteIds.isEmpty()) {
                 layers = new BlockStorage[]{ layer0 };
             } else {
-                // The section contains waterlogged blocks, we need to convert coordinate order AND generate a V1 block storage for
+                // The section contains waterlogged blocks, we need to generate a V1 block storage for
                 // layer 1 with palette ID 1 indicating water
                 int[] layer1Data = new int[BlockStorage.SIZE >> 5];
                 for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
-                    int paletteId = javaData.get(yzx);
-                    int xzy = indexYZXtoXZY(yzx);
-                    bedrockData.set(xzy, paletteId);
-
-                    if (waterloggedPaletteIds.get(paletteId)) {
+                    if (waterloggedPaletteIds.get(javaBlocks[yzx])) {
+                        int xzy = ChunkSectionTranspose.yzxToXzy(yzx);
                         layer1Data[xzy >> 5] |= 1 << (xzy & 0x1F);
                     }
                 }
@@ -229,7 +247,12 @@ public class ChunkUtils {
                 layers = new BlockStorage[]{ layer0, new BlockStorage(BitArrayVersion.V1.createArray(BlockStorage.SIZE, layer1Data), layer1Palette) };
             }
 
-            sections[sectionY] = new ChunkSection(layers);
+            byte[] serializedSection = serializeSection(new ChunkSection(layers));
+            if (cacheable) {
+                sectionCache.put(session.getBlockTranslator().getBlockStateVersion(), javaData.getBitsPerEntry(),
+                        javaPaletteStates, javaData.getData(), serializedSection);
+            }
+            sections[sectionY] = serializedSection;
         }
 
         CompoundTag[] blockEntities = column.getTileEntities();
@@ -269,7 +292,14 @@ public class ChunkUtils {
 
             if (tagName.equals("minecraft:lectern") && BlockStateValues.getLecternBookStates().get(blockState)) {
                 // If getLecternBookStates is false, let's just treat it like a normal block entity
-                bedrockBlockEntities[i] = session.getConnector().getWorldManager().getLecternDataAt(session, pos.getX(), pos.getY(), pos.getZ(), true);
+                WorldManager worldManager = session.getConnector().getWorldManager();
+                if (worldManager.shouldExpectLecternHandled()) {
+                    // The book is looked up on the server and sent later, which must not happen from a chunk thread
+                    bedrockBlockEntities[i] = LecternInventoryTranslator.getBaseLecternTag(pos.getX(), pos.getY(), pos.getZ(), 0).build();
+                    session.executeInEventLoop(() -> worldManager.getLecternDataAt(session, pos.getX(), pos.getY(), pos.getZ(), true));
+                } else {
+                    bedrockBlockEntities[i] = worldManager.getLecternDataAt(session, pos.getX(), pos.getY(), pos.getZ(), true);
+                }
                 i++;
                 continue;
             }
@@ -279,7 +309,9 @@ public class ChunkUtils {
 
             // Check for custom skulls
             if (SkullBlockEntityTranslator.ALLOW_CUSTOM_SKULLS && tag.contains("SkullOwner")) {
-                SkullBlockEntityTranslator.spawnPlayer(session, tag, blockState);
+                // Spawning the skull changes the entity cache, which only the event loop may do
+                int skullBlockState = blockState;
+                session.executeInEventLoop(() -> SkullBlockEntityTranslator.spawnPlayer(session, tag, skullBlockState));
             }
             i++;
         }
@@ -293,6 +325,24 @@ public class ChunkUtils {
         return new ChunkData(sections, bedrockBlockEntities);
     }
 
+    /**
+     * Serialize a chunk section on its own, in the format it is sent over the network.
+     *
+     * @param section the section to serialize
+     * @return the serialized section
+     */
+    public static byte[] serializeSection(ChunkSection section) {
+        ByteBuf byteBuf = ByteBufAllocator.DEFAULT.buffer(section.estimateNetworkSize());
+        try {
+            section.writeToNetwork(byteBuf);
+            byte[] serializedSection = new byte[byteBuf.readableBytes()];
+            byteBuf.readBytes(serializedSection);
+            return serializedSection;
+        } finally {
+            byteBuf.release();
+        }
+    }
+
     public static void updateChunkPosition(RorySession session, Vector3i position) {
         Vector2i chunkPos = session.getLastChunkPosition();
         Vector2i newChunkPos = Vector2i.from(position.getX() >> 4, position.getZ() >> 4);
@@ -390,19 +440,15 @@ public class ChunkUtils {
 
         // Since Java stores bed colors/skull information as part of the namespaced ID and Bedrock stores it as a tag
         // This is the only place I could find that interacts with the Java block state and block updates
-        // Iterates through all block entity translators and determines if the block state needs to be saved
-        for (RequiresBlockState requiresBlockState : BlockEntityTranslator.REQUIRES_BLOCK_STATE_LIST) {
-            if (requiresBlockState.isBlock(blockState)) {
-                // Flower pots are block entities only in Bedrock and are not updated anywhere else like note blocks
-                if (requiresBlockState instanceof BedrockOnlyBlockEntity) {
-                    ((BedrockOnlyBlockEntity) requiresBlockState).updateBlock(session, blockState, position);
-                    break;
-                }
-                if (!session.getConnector().getConfig().isCacheChunks()) {
-                    // Blocks aren't saved to a chunk cache; resort to this smaller cache
-                    CACHED_BLOCK_ENTITIES.put(new Position(position.getX(), position.getY(), position.getZ()), blockState);
-                }
-                break; //No block will be a part of two classes
+        // Looks up the block entity translator, if any, that determines if the block state needs to be saved
+        RequiresBlockState requiresBlockState = BlockEntityTranslator.getRequiresBlockState(blockState);
+        if (requiresBlockState != null) {
+            // Flower pots are block entities only in Bedrock and are not updated anywhere else like note blocks
+            if (requiresBlockState instanceof BedrockOnlyBlockEntity) {
+                ((BedrockOnlyBlockEntity) requiresBlockState).updateBlock(session, blockState, position);
+            } else if (!session.getConnector().getConfig().isCacheChunks()) {
+                // Blocks aren't saved to a chunk cache; resort to this smaller cache
+                CACHED_BLOCK_ENTITIES.put(new Position(position.getX(), position.getY(), position.getZ()), blockState);
             }
         }
         session.getChunkCache().updateBlock(position.getX(), position.getY(), position.getZ(), blockState);
@@ -435,7 +481,10 @@ public class ChunkUtils {
 
     @Data
     public static final class ChunkData {
-        private final ChunkSection[] sections;
+        /**
+         * The serialized Bedrock sections of this chunk; null if the section is empty
+         */
+        private final byte[][] sections;
 
         private final NbtMap[] blockEntities;
     }
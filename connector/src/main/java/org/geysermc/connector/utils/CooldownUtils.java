@@ -88,7 +88,7 @@ public class CooldownUtils {
         titlePacket.setStayTime(2);
         session.sendUpstreamPacket(titlePacket);
         if (hasCooldown(session)) {
-            session.getConnector().getGeneralThreadPool().schedule(() -> computeCooldown(session, sessionPreference, lastHitTime), 50, TimeUnit.MILLISECONDS); // Updated per tick. 1000 divided by 20 ticks equals 50
+            session.getEventLoop().schedule(() -> computeCooldown(session, sessionPreference, lastHitTime), 50, TimeUnit.MILLISECONDS); // Updated per tick. 1000 divided by 20 ticks equals 50
         } else {
             SetTitlePacket removeTitlePacket = new SetTitlePacket();
             if (sessionPreference == CooldownType.ACTIONBAR) {
@@ -62,6 +62,9 @@ public class DimensionUtils {
         session.getItemFrameCache().clear();
         session.getLecternCache().clear();
         session.getSkullCache().clear();
+        // Don't send any remaining world data of the previous dimension into the new one
+        session.getPacketScheduler().clearWorldPackets();
+        session.getChunkBlobCache().clear();
 
         Vector3i pos = Vector3i.from(0, Short.MAX_VALUE, 0);
 
@@ -37,7 +37,6 @@ import com.nukkitx.protocol.bedrock.data.inventory.ContainerId;
 import com.nukkitx.protocol.bedrock.data.inventory.ItemData;
 import com.nukkitx.protocol.bedrock.packet.InventorySlotPacket;
 import com.nukkitx.protocol.bedrock.packet.PlayerHotbarPacket;
-import org.geysermc.connector.RoryConnector;
 import org.geysermc.connector.common.ChatColor;
 import org.geysermc.connector.inventory.Container;
 import org.geysermc.connector.inventory.RoryItemStack;
@@ -73,7 +72,7 @@ public class InventoryUtils {
         if (translator != null) {
             translator.prepareInventory(session, inventory);
             if (translator instanceof DoubleChestInventoryTranslator && !((Container) inventory).isUsingRealBlock()) {
-                RoryConnector.getInstance().getGeneralThreadPool().schedule(() ->
+                session.getEventLoop().schedule(() ->
                     session.addInventoryTask(() -> {
                         Inventory openInv = session.getOpenInventory();
                         if (openInv != null && openInv.getId() == inventory.getId()) {
@@ -31,6 +31,8 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.github.steveice10.mc.protocol.MinecraftConstants;
 import lombok.Getter;
 import org.geysermc.connector.RoryConnector;
+import org.geysermc.connector.network.translators.chat.MessageTranslator;
+import org.geysermc.connector.network.translators.item.TranslatedItemCache;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -220,6 +222,14 @@ public class LocaleUtils {
             // Insert the locale into the mappings
             LOCALE_MAPPINGS.put(locale.toLowerCase(), langMap);
 
+            // Anything translated for this locale before it was loaded used the fallback language
+            MessageTranslator.clearCache();
+            TranslatedItemCache itemCache = RoryConnector.getInstance().getTranslatedItemCache();
+            if (itemCache != null) {
+                itemCache.invalidateLocale(locale);
+            }
+            RoryConnector.getInstance().getTranslatedRecipeCache().invalidateAll();
+
             try {
                 localeStream.close();
             } catch (IOException e) {
@@ -30,11 +30,14 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.github.steveice10.mc.auth.service.MsaAuthenticationService;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.nimbusds.jose.JWSObject;
 import com.nukkitx.network.util.Preconditions;
 import com.nukkitx.protocol.bedrock.packet.LoginPacket;
 import com.nukkitx.protocol.bedrock.packet.ServerToClientHandshakePacket;
 import com.nukkitx.protocol.bedrock.util.EncryptionUtils;
+import lombok.AllArgsConstructor;
 import org.geysermc.common.window.*;
 import org.geysermc.common.window.button.FormButton;
 import org.geysermc.common.window.component.InputComponent;
@@ -56,12 +59,35 @@ import java.security.PublicKey;
 import java.security.interfaces.ECPublicKey;
 import java.security.spec.ECGenParameterSpec;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
 
 public class LoginEncryptionUtils {
     private static final ObjectMapper JSON_MAPPER = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
 
     private static boolean HAS_SENT_ENCRYPTION_MESSAGE = false;
 
+    /**
+     * Public keys are parsed once. The keys Mojang signs the chain with are the same for every player.
+     */
+    private static final Cache<String, ECPublicKey> PUBLIC_KEYS = CacheBuilder.newBuilder()
+            .maximumSize(1024)
+            .build();
+
+    private static final AtomicLong VERIFIED_LOGINS = new AtomicLong();
+    private static final AtomicLong REJECTED_LOGINS = new AtomicLong();
+    private static final AtomicLong TOTAL_VERIFICATION_NANOS = new AtomicLong();
+    private static final LongAccumulator MAX_VERIFICATION_NANOS = new LongAccumulator(Math::max, 0);
+    private static final AtomicLong STARTED_LOGINS = new AtomicLong();
+    private static final AtomicLong TOTAL_QUEUE_WAIT_NANOS = new AtomicLong();
+    private static final LongAccumulator MAX_QUEUE_WAIT_NANOS = new LongAccumulator(Math::max, 0);
+
+    private static ECPublicKey getPublicKey(String encodedKey) throws ExecutionException {
+        return PUBLIC_KEYS.get(encodedKey, () -> EncryptionUtils.generateKey(encodedKey));
+    }
+
     private static boolean validateChainData(JsonNode data) throws Exception {
         ECPublicKey lastKey = null;
         boolean validChain = false;
@@ -79,12 +105,53 @@ public class LoginEncryptionUtils {
             JsonNode payloadNode = JSON_MAPPER.readTree(jwt.getPayload().toString());
             JsonNode ipkNode = payloadNode.get("identityPublicKey");
             Preconditions.checkState(ipkNode != null && ipkNode.getNodeType() == JsonNodeType.STRING, "identityPublicKey node is missing in chain");
-            lastKey = EncryptionUtils.generateKey(ipkNode.asText());
+            lastKey = getPublicKey(ipkNode.asText());
         }
         return validChain;
     }
 
-    public static void encryptPlayerConnection(RoryConnector connector, RorySession session, LoginPacket loginPacket) {
+    /**
+     * Verifies the login of the player on the login thread pool, so logins don't hold up the network threads.
+     * The connection is encrypted and the login continues on the session's event loop afterwards.
+     *
+     * @param onVerified run on the session's event loop once the login is verified
+     */
+    public static void encryptPlayerConnection(RoryConnector connector, RorySession session, LoginPacket loginPacket, Runnable onVerified) {
+        long submitTime = System.nanoTime();
+        try {
+            connector.getLoginThreadPool().execute(() -> {
+                VerifiedLogin login;
+                long startTime = System.nanoTime();
+                long queueWait = startTime - submitTime;
+                STARTED_LOGINS.incrementAndGet();
+                TOTAL_QUEUE_WAIT_NANOS.addAndGet(queueWait);
+                MAX_QUEUE_WAIT_NANOS.accumulate(queueWait);
+                try {
+                    login = verifyLogin(connector, loginPacket);
+                } catch (Exception ex) {
+                    connector.getLogger().error("Unable to complete login", ex);
+                    session.executeInEventLoop(() -> session.disconnect("disconnectionScreen.internalError.cantConnect"));
+                    return;
+                }
+                long verificationTime = System.nanoTime() - startTime;
+                VERIFIED_LOGINS.incrementAndGet();
+                TOTAL_VERIFICATION_NANOS.addAndGet(verificationTime);
+                MAX_VERIFICATION_NANOS.accumulate(verificationTime);
+
+                session.executeInEventLoop(() -> {
+                    if (!session.isClosed() && encryptConnection(connector, session, login)) {
+                        onVerified.run();
+                    }
+                });
+            });
+        } catch (RejectedExecutionException ex) {
+            // Too many players are logging in at once
+            REJECTED_LOGINS.incrementAndGet();
+            session.executeInEventLoop(() -> session.disconnect("disconnectionScreen.serverFull"));
+        }
+    }
+
+    private static VerifiedLogin verifyLogin(RoryConnector connector, LoginPacket loginPacket) throws Exception {
         JsonNode certData;
         try {
             certData = JSON_MAPPER.readTree(loginPacket.getChainData().toByteArray());
@@ -97,61 +164,66 @@ public class LoginEncryptionUtils {
             throw new RuntimeException("Certificate data is not valid");
         }
 
-        encryptConnectionWithCert(connector, session, loginPacket.getSkinData().toString(), certChainData);
-    }
+        boolean validChain = validateChainData(certChainData);
 
-    private static void encryptConnectionWithCert(RoryConnector connector, RorySession session, String clientData, JsonNode certChainData) {
-        try {
-            boolean validChain = validateChainData(certChainData);
+        connector.getLogger().debug(String.format("Is player data valid? %s", validChain));
 
-            connector.getLogger().debug(String.format("Is player data valid? %s", validChain));
+        if (!validChain && !connector.getConfig().isEnableProxyConnections()) {
+            return new VerifiedLogin(false, null, null, null);
+        }
+        JWSObject jwt = JWSObject.parse(certChainData.get(certChainData.size() - 1).asText());
+        JsonNode payload = JSON_MAPPER.readTree(jwt.getPayload().toBytes());
 
-            if (!validChain && !session.getConnector().getConfig().isEnableProxyConnections()) {
-                session.disconnect(LanguageUtils.getLocaleStringLog("geyser.network.remote.invalid_xbox_account"));
-                return;
-            }
-            JWSObject jwt = JWSObject.parse(certChainData.get(certChainData.size() - 1).asText());
-            JsonNode payload = JSON_MAPPER.readTree(jwt.getPayload().toBytes());
+        if (payload.get("extraData").getNodeType() != JsonNodeType.OBJECT) {
+            throw new RuntimeException("AuthData was not found!");
+        }
 
-            if (payload.get("extraData").getNodeType() != JsonNodeType.OBJECT) {
-                throw new RuntimeException("AuthData was not found!");
-            }
+        JsonNode extraData = payload.get("extraData");
+        AuthData authData = new AuthData(
+                extraData.get("displayName").asText(),
+                UUID.fromString(extraData.get("identity").asText()),
+                extraData.get("XUID").asText()
+        );
 
-            JsonNode extraData = payload.get("extraData");
-            session.setAuthenticationData(new AuthData(
-                    extraData.get("displayName").asText(),
-                    UUID.fromString(extraData.get("identity").asText()),
-                    extraData.get("XUID").asText()
-            ));
+        if (payload.get("identityPublicKey").getNodeType() != JsonNodeType.STRING) {
+            throw new RuntimeException("Identity Public Key was not found!");
+        }
 
-            if (payload.get("identityPublicKey").getNodeType() != JsonNodeType.STRING) {
-                throw new RuntimeException("Identity Public Key was not found!");
-            }
+        ECPublicKey identityPublicKey = getPublicKey(payload.get("identityPublicKey").textValue());
+        JWSObject clientJwt = JWSObject.parse(loginPacket.getSkinData().toString());
+        EncryptionUtils.verifyJwt(clientJwt, identityPublicKey);
 
-            ECPublicKey identityPublicKey = EncryptionUtils.generateKey(payload.get("identityPublicKey").textValue());
-            JWSObject clientJwt = JWSObject.parse(clientData);
-            EncryptionUtils.verifyJwt(clientJwt, identityPublicKey);
+        BedrockClientData clientData = JSON_MAPPER.convertValue(JSON_MAPPER.readTree(clientJwt.getPayload().toBytes()), BedrockClientData.class);
+        return new VerifiedLogin(true, authData, clientData, identityPublicKey);
+    }
 
-            session.setClientData(JSON_MAPPER.convertValue(JSON_MAPPER.readTree(clientJwt.getPayload().toBytes()), BedrockClientData.class));
+    /**
+     * @return if the login can continue
+     */
+    private static boolean encryptConnection(RoryConnector connector, RorySession session, VerifiedLogin login) {
+        if (!login.valid) {
+            session.disconnect(LanguageUtils.getLocaleStringLog("geyser.network.remote.invalid_xbox_account"));
+            return false;
+        }
 
-            if (EncryptionUtils.canUseEncryption()) {
-                try {
-                    LoginEncryptionUtils.startEncryptionHandshake(session, identityPublicKey);
-                } catch (Throwable e) {
-                    // An error can be thrown on older Java 8 versions about an invalid key
-                    if (connector.getConfig().isDebugMode()) {
-                        e.printStackTrace();
-                    }
+        session.setAuthenticationData(login.authData);
+        session.setClientData(login.clientData);
 
-                    sendEncryptionFailedMessage(connector);
+        if (EncryptionUtils.canUseEncryption()) {
+            try {
+                LoginEncryptionUtils.startEncryptionHandshake(session, login.identityPublicKey);
+            } catch (Throwable e) {
+                // An error can be thrown on older Java 8 versions about an invalid key
+                if (connector.getConfig().isDebugMode()) {
+                    e.printStackTrace();
                 }
-            } else {
+
                 sendEncryptionFailedMessage(connector);
             }
-        } catch (Exception ex) {
-            session.disconnect("disconnectionScreen.internalError.cantConnect");
-            throw new RuntimeException("Unable to complete login", ex);
+        } else {
+            sendEncryptionFailedMessage(connector);
         }
+        return true;
     }
 
     private static void startEncryptionHandshake(RorySession session, PublicKey key) throws Exception {
@@ -176,6 +248,52 @@ public class LoginEncryptionUtils {
         }
     }
 
+    /**
+     * @return how many logins have been verified
+     */
+    public static long getVerifiedLogins() {
+        return VERIFIED_LOGINS.get();
+    }
+
+    /**
+     * @return how many logins were refused because too many players were logging in at once
+     */
+    public static long getRejectedLogins() {
+        return REJECTED_LOGINS.get();
+    }
+
+    public static double getAverageVerificationMillis() {
+        long verifiedLogins = VERIFIED_LOGINS.get();
+        return verifiedLogins == 0 ? 0 : TOTAL_VERIFICATION_NANOS.get() / (verifiedLogins * 1_000_000.0);
+    }
+
+    public static double getMaxVerificationMillis() {
+        return MAX_VERIFICATION_NANOS.get() / 1_000_000.0;
+    }
+
+    /**
+     * @return how long logins waited for a login thread on average, which is not included in the verification time
+     */
+    public static double getAverageQueueWaitMillis() {
+        long startedLogins = STARTED_LOGINS.get();
+        return startedLogins == 0 ? 0 : TOTAL_QUEUE_WAIT_NANOS.get() / (startedLogins * 1_000_000.0);
+    }
+
+    public static double getMaxQueueWaitMillis() {
+        return MAX_QUEUE_WAIT_NANOS.get() / 1_000_000.0;
+    }
+
+    @AllArgsConstructor
+    private static class VerifiedLogin {
+        /**
+         * If the login is signed by Mojang. If not, the other fields are null.
+         */
+        private final boolean valid;
+        private final AuthData authData;
+        private final BedrockClientData clientData;
+        private final ECPublicKey identityPublicKey;
+    }
+
     private static final int AUTH_MSA_DETAILS_FORM_ID = 1334;
     private static final int AUTH_MSA_CODE_FORM_ID = 1335;
     private static final int AUTH_FORM_ID = 1336;
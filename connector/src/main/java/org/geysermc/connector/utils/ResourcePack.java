@@ -28,8 +28,15 @@ package org.geysermc.connector.utils;
 import org.geysermc.connector.RoryConnector;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -48,8 +55,23 @@ public class ResourcePack {
      */
     public static final int CHUNK_SIZE = 102400;
 
+    /**
+     * The most chunks that are copied and sent at once across all sessions, so many clients downloading the packs
+     * at once don't all hold chunk copies on the heap at the same time
+     */
+    private static final int MAX_SENDING_CHUNKS = 8;
+    private static final AtomicInteger SENDING_CHUNKS = new AtomicInteger();
+    /**
+     * Tasks of sessions waiting to send a chunk until other sessions are done
+     */
+    private static final Queue<Runnable> WAITING_SENDERS = new ConcurrentLinkedQueue<>();
+
     private byte[] sha256;
     private File file;
+    /**
+     * The contents of the pack file, mapped into memory so chunks can be sent without reading the file again
+     */
+    private ByteBuffer data;
     private ResourcePackManifest manifest;
     private ResourcePackManifest.Version version;
 
@@ -74,6 +96,7 @@ public class ResourcePack {
 
                 Stream<? extends ZipEntry> stream = null;
                 try {
+                    pack.data = map(file);
                     ZipFile zip = new ZipFile(file);
 
                     stream = zip.stream();
@@ -107,6 +130,99 @@ public class ResourcePack {
         }
     }
 
+    /**
+     * Start sending a chunk to a client, if not too many chunks are being sent already.
+     * {@link #finishSendingChunk()} must be called once the chunk is sent.
+     *
+     * @return if the chunk may be sent
+     */
+    public static boolean startSendingChunk() {
+        int sending;
+        do {
+            sending = SENDING_CHUNKS.get();
+            if (sending >= MAX_SENDING_CHUNKS) {
+                return false;
+            }
+        } while (!SENDING_CHUNKS.compareAndSet(sending, sending + 1));
+        return true;
+    }
+
+    public static void finishSendingChunk() {
+        SENDING_CHUNKS.decrementAndGet();
+        wakeWaitingSender();
+    }
+
+    /**
+     * Run a task once another chunk may be sent. The task should try {@link #startSendingChunk()} again, and call
+     * {@link #wakeWaitingSender()} if it no longer needs to send a chunk.
+     */
+    public static void waitToSendChunk(Runnable task) {
+        WAITING_SENDERS.add(task);
+        // The other chunks may have been sent before the task was added
+        wakeWaitingSender();
+    }
+
+    /**
+     * Run the task of the session that waited longest, if another chunk may be sent.
+     */
+    public static void wakeWaitingSender() {
+        if (SENDING_CHUNKS.get() < MAX_SENDING_CHUNKS) {
+            Runnable task = WAITING_SENDERS.poll();
+            if (task != null) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * @return how many chunks all packs are sent in together
+     */
+    public static int getTotalChunkCount() {
+        int chunkCount = 0;
+        for (ResourcePack pack : PACKS.values()) {
+            chunkCount += pack.getChunkCount();
+        }
+        return chunkCount;
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Copies a chunk of the pack file.
+     *
+     * @param index the index of the chunk, with chunks being {@link #CHUNK_SIZE} bytes long
+     * @return the chunk, which is empty if the index is outside of the pack
+     */
+    public byte[] getChunk(int index) {
+        long offset = (long) index * CHUNK_SIZE;
+        byte[] chunk = new byte[index < 0 ? 0 : (int) MathUtils.constrain(data.capacity() - offset, 0, CHUNK_SIZE)];
+        if (chunk.length > 0) {
+            // Duplicated so multiple sessions can read at once
+            ByteBuffer buffer = data.duplicate();
+            buffer.position((int) offset);
+            buffer.get(chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * @return the size of the pack file in bytes
+     */
+    public long getSize() {
+        return data.capacity();
+    }
+
+    /**
+     * @return how many chunks of {@link #CHUNK_SIZE} bytes the pack is sent in
+     */
+    public int getChunkCount() {
+        return (int) Math.ceil(data.capacity() / (double) CHUNK_SIZE);
+    }
+
     public byte[] getSha256() {
         return sha256;
     }
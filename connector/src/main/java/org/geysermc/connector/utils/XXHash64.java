@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.utils;
+
+/**
+ * A plain Java implementation of the 64-bit xxHash algorithm.
+ *
+ * Bedrock uses xxHash64 (with a seed of 0) to identify blobs in its client-side chunk cache,
+ * so the hashes produced here must match the reference implementation exactly.
+ */
+public class XXHash64 {
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    /**
+     * Hash the given array with a seed of 0
+     *
+     * @param data the data to hash
+     * @return the xxHash64 value of the data
+     */
+    public static long hash(byte[] data) {
+        return hash(data, 0, data.length, 0L);
+    }
+
+    /**
+     * Hash a region of the given array
+     *
+     * @param data the data to hash
+     * @param offset the offset to start hashing at
+     * @param length the amount of bytes to hash
+     * @param seed the seed to use
+     * @return the xxHash64 value of the data
+     */
+    public static long hash(byte[] data, int offset, int length, long seed) {
+        int end = offset + length;
+        long hash;
+
+        if (length >= 32) {
+            int limit = end - 32;
+            long v1 = seed + PRIME64_1 + PRIME64_2;
+            long v2 = seed + PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - PRIME64_1;
+
+            do {
+                v1 = round(v1, readLongLE(data, offset));
+                v2 = round(v2, readLongLE(data, offset + 8));
+                v3 = round(v3, readLongLE(data, offset + 16));
+                v4 = round(v4, readLongLE(data, offset + 24));
+                offset += 32;
+            } while (offset <= limit);
+
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = seed + PRIME64_5;
+        }
+
+        hash += length;
+
+        while (offset + 8 <= end) {
+            hash ^= round(0, readLongLE(data, offset));
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+            offset += 8;
+        }
+
+        if (offset + 4 <= end) {
+            hash ^= (readIntLE(data, offset) & 0xFFFFFFFFL) * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+            offset += 4;
+        }
+
+        while (offset < end) {
+            hash ^= (data[offset] & 0xFF) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+            offset++;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME64_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME64_1;
+    }
+
+    private static long mergeRound(long accumulator, long value) {
+        accumulator ^= round(0, value);
+        return accumulator * PRIME64_1 + PRIME64_4;
+    }
+
+    private static long readLongLE(byte[] data, int offset) {
+        return (data[offset] & 0xFFL)
+                | (data[offset + 1] & 0xFFL) << 8
+                | (data[offset + 2] & 0xFFL) << 16
+                | (data[offset + 3] & 0xFFL) << 24
+                | (data[offset + 4] & 0xFFL) << 32
+                | (data[offset + 5] & 0xFFL) << 40
+                | (data[offset + 6] & 0xFFL) << 48
+                | (data[offset + 7] & 0xFFL) << 56;
+    }
+
+    private static int readIntLE(byte[] data, int offset) {
+        return (data[offset] & 0xFF)
+                | (data[offset + 1] & 0xFF) << 8
+                | (data[offset + 2] & 0xFF) << 16
+                | (data[offset + 3] & 0xFF) << 24;
+    }
+}
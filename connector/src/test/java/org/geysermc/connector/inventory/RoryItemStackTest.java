@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.inventory;
+
+import com.nukkitx.protocol.bedrock.data.inventory.ItemData;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RoryItemStackTest {
+
+    @Test
+    public void equalStacksGetIndependentNetIds() {
+        // Translated items are cached and shared, so two equal stacks get the same instance from the translator
+        ItemData translated = ItemData.builder().id(1).count(1).build();
+        RoryItemStack first = new RoryItemStack(1, 1, null, 10);
+        RoryItemStack second = new RoryItemStack(1, 1, null, 11);
+
+        ItemData firstData = first.withNetId(translated);
+        ItemData secondData = second.withNetId(translated);
+
+        Assert.assertEquals(10, firstData.getNetId());
+        Assert.assertEquals(11, secondData.getNetId());
+        Assert.assertTrue(firstData.isUsingNetId());
+        Assert.assertTrue(secondData.isUsingNetId());
+        Assert.assertEquals("The shared item is not modified", 0, translated.getNetId());
+        Assert.assertFalse(translated.isUsingNetId());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session.cache;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CachedChunkSectionTest {
+
+    @Test
+    public void identicalSectionsAreShared() {
+        CachedChunkSection a = CachedChunkSection.of(section(1), true);
+        CachedChunkSection b = CachedChunkSection.of(section(1), true);
+        Assert.assertSame(a, b);
+
+        Assert.assertNotSame("Different block data", a, CachedChunkSection.of(section(2), true));
+        Assert.assertNotSame("Sharing disabled", a, CachedChunkSection.of(section(1), false));
+        Assert.assertNotSame(CachedChunkSection.of(section(1), false), CachedChunkSection.of(section(1), false));
+    }
+
+    @Test
+    public void sharedSectionsAreCopiedOnChange() {
+        CachedChunkSection shared = CachedChunkSection.of(section(1), true);
+        int before = shared.get(0);
+
+        CachedChunkSection changed = shared.set(0, 5);
+        Assert.assertNotSame(shared, changed);
+        Assert.assertEquals(5, changed.get(0));
+        Assert.assertEquals("Shared section was changed", before, shared.get(0));
+        Assert.assertSame("Section is no longer shared", shared, CachedChunkSection.of(section(1), true));
+
+        // Setting a block to what it already is doesn't need a copy
+        Assert.assertSame(shared, shared.set(0, before));
+    }
+
+    @Test
+    public void uniformSectionsAreShared() {
+        Chunk stone = new Chunk();
+        for (int index = 0; index < 4096; index++) {
+            stone.set(index & 0xF, (index >> 8) & 0xF, (index >> 4) & 0xF, 1);
+        }
+        CachedChunkSection uniform = CachedChunkSection.of(stone, false);
+        Assert.assertSame("Uniform sections are always shared", CachedChunkSection.uniform(1), uniform);
+
+        CachedChunkSection changed = uniform.set(100, 2);
+        Assert.assertNotSame(uniform, changed);
+        Assert.assertEquals(2, changed.get(100));
+        Assert.assertEquals(1, changed.get(101));
+        Assert.assertEquals(1, uniform.get(100));
+    }
+
+    /**
+     * @return a section with a few different blocks, made unique by the given state
+     */
+    private static Chunk section(int state) {
+        Chunk chunk = new Chunk();
+        for (int i = 0; i < 64; i++) {
+            chunk.set(i & 0xF, 0, (i >> 4) & 0xF, state + (i % 3));
+        }
+        return chunk;
+    }
+}
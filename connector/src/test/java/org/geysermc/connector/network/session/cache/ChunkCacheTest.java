@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.session.cache;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
+import com.github.steveice10.mc.protocol.data.game.chunk.Column;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.IntTag;
+import com.github.steveice10.opennbt.tag.builtin.StringTag;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class ChunkCacheTest {
+    private static final int STONE = 1;
+    private static final int DIRT = 10;
+
+    @Test
+    public void partialUpdateKeepsBlockEntitiesOfUntouchedSections() {
+        ChunkCache cache = new ChunkCache(true, false);
+
+        Chunk[] fullSections = new Chunk[16];
+        fullSections[0] = filledSection(STONE);
+        fullSections[2] = filledSection(STONE);
+        cache.addToCache(new Column(0, 0, fullSections,
+                new CompoundTag[]{blockEntity(1, 5, 1), blockEntity(2, 40, 2)}, new CompoundTag(""), new int[1024]));
+
+        Chunk[] partialSections = new Chunk[16];
+        partialSections[2] = filledSection(DIRT);
+        Column merged = cache.addToCache(new Column(0, 0, partialSections,
+                new CompoundTag[]{blockEntity(3, 41, 3)}, new CompoundTag(""), null));
+
+        Assert.assertNotNull(merged);
+        Assert.assertEquals(positionsOf(blockEntity(1, 5, 1), blockEntity(3, 41, 3)), positionsOf(merged.getTileEntities()));
+        Assert.assertEquals(STONE, merged.getChunks()[0].get(0, 0, 0));
+        Assert.assertEquals(DIRT, merged.getChunks()[2].get(0, 0, 0));
+
+        // The merged block entities are what the next partial update builds on
+        Column next = cache.addToCache(new Column(0, 0, new Chunk[]{filledSection(DIRT)},
+                new CompoundTag[0], new CompoundTag(""), null));
+        Assert.assertNotNull(next);
+        Assert.assertEquals(positionsOf(blockEntity(3, 41, 3)), positionsOf(next.getTileEntities()));
+    }
+
+    @Test
+    public void translatedBlockEntitiesReplaceJavaBlockEntities() {
+        ChunkCache cache = new ChunkCache(true, false);
+
+        Chunk[] fullSections = new Chunk[16];
+        fullSections[0] = filledSection(STONE);
+        fullSections[2] = filledSection(STONE);
+        CompoundTag[] javaBlockEntities = {blockEntity(1, 5, 1), blockEntity(2, 40, 2)};
+        cache.addToCache(new Column(0, 0, fullSections, javaBlockEntities, new CompoundTag(""), new int[1024]));
+        long javaMemoryUsage = cache.getMemoryUsage();
+
+        byte[][] translated = new byte[16][];
+        translated[0] = new byte[]{1, 2, 3};
+        translated[2] = new byte[]{4, 5};
+        cache.storeTranslatedBlockEntities(0, 0, javaBlockEntities, translated, new CompoundTag[0]);
+        Assert.assertArrayEquals(new byte[]{1, 2, 3, 4, 5}, cache.getTranslatedBlockEntities(0, 0));
+        Assert.assertTrue("Java block entities are no longer kept", cache.getMemoryUsage() < javaMemoryUsage);
+
+        Chunk[] partialSections = new Chunk[16];
+        partialSections[2] = filledSection(DIRT);
+        Column merged = cache.addToCache(new Column(0, 0, partialSections,
+                new CompoundTag[]{blockEntity(3, 41, 3)}, new CompoundTag(""), null));
+
+        // Only the updated section is translated again; the other section is sent as it was translated before
+        Assert.assertEquals(positionsOf(blockEntity(3, 41, 3)), positionsOf(merged.getTileEntities()));
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, cache.getTranslatedBlockEntities(0, 0));
+    }
+
+    @Test
+    public void outdatedTranslationIsNotStored() {
+        ChunkCache cache = new ChunkCache(true, false);
+
+        Chunk[] fullSections = new Chunk[16];
+        fullSections[0] = filledSection(STONE);
+        CompoundTag[] javaBlockEntities = {blockEntity(1, 5, 1)};
+        cache.addToCache(new Column(0, 0, fullSections, javaBlockEntities, new CompoundTag(""), new int[1024]));
+
+        // A partial update arrives before the full column was translated
+        Chunk[] partialSections = new Chunk[16];
+        partialSections[1] = filledSection(DIRT);
+        Column merged = cache.addToCache(new Column(0, 0, partialSections, new CompoundTag[0], new CompoundTag(""), null));
+
+        byte[][] translated = new byte[16][];
+        translated[0] = new byte[]{1};
+        cache.storeTranslatedBlockEntities(0, 0, javaBlockEntities, translated, new CompoundTag[0]);
+        Assert.assertEquals(0, cache.getTranslatedBlockEntities(0, 0).length);
+
+        // The newer version is stored once it is translated, and a lectern stays as it was received
+        CompoundTag lectern = blockEntity(1, 5, 1);
+        cache.storeTranslatedBlockEntities(0, 0, merged.getTileEntities(), new byte[16][], new CompoundTag[]{lectern});
+        Chunk[] nextSections = new Chunk[16];
+        nextSections[1] = filledSection(STONE);
+        Column next = cache.addToCache(new Column(0, 0, nextSections, new CompoundTag[0], new CompoundTag(""), null));
+        Assert.assertArrayEquals(new CompoundTag[]{lectern}, next.getTileEntities());
+    }
+
+    @Test
+    public void partialUpdateWithoutSectionsIsSkipped() {
+        ChunkCache cache = new ChunkCache(true, false);
+        cache.addToCache(new Column(0, 0, new Chunk[16], new CompoundTag[0], new CompoundTag(""), new int[1024]));
+        Assert.assertNull(cache.addToCache(new Column(0, 0, new Chunk[16], new CompoundTag[0], new CompoundTag(""), null)));
+    }
+
+    @Test
+    public void rebuiltSectionMatchesCachedSection() {
+        Chunk chunk = new Chunk();
+        for (int i = 0; i < 4096; i++) {
+            // Air first, so the section is the same however the palette starts
+            chunk.set(i & 0xF, (i >> 8) & 0xF, (i >> 4) & 0xF, i % 21);
+        }
+
+        for (boolean share : new boolean[]{false, true}) {
+            Chunk rebuilt = CachedChunkSection.of(chunk, share).toChunk();
+            Assert.assertEquals(chunk.getBlockCount(), rebuilt.getBlockCount());
+            Assert.assertEquals(chunk.getStorage().getBitsPerEntry(), rebuilt.getStorage().getBitsPerEntry());
+            for (int x = 0; x < 16; x++) {
+                for (int y = 0; y < 16; y++) {
+                    for (int z = 0; z < 16; z++) {
+                        Assert.assertEquals(chunk.get(x, y, z), rebuilt.get(x, y, z));
+                    }
+                }
+            }
+        }
+
+        Assert.assertTrue(CachedChunkSection.uniform(0).toChunk().isEmpty());
+        Assert.assertEquals(STONE, CachedChunkSection.uniform(STONE).toChunk().get(15, 15, 15));
+    }
+
+    private static Chunk filledSection(int state) {
+        Chunk chunk = new Chunk();
+        for (int x = 0; x < 16; x++) {
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    chunk.set(x, y, z, state);
+                }
+            }
+        }
+        return chunk;
+    }
+
+    private static CompoundTag blockEntity(int x, int y, int z) {
+        CompoundTag tag = new CompoundTag("");
+        tag.put(new StringTag("id", "minecraft:sign"));
+        tag.put(new IntTag("x", x));
+        tag.put(new IntTag("y", y));
+        tag.put(new IntTag("z", z));
+        return tag;
+    }
+
+    private static Set<String> positionsOf(CompoundTag... tags) {
+        Set<String> positions = new HashSet<>();
+        for (CompoundTag tag : tags) {
+            positions.add(tag.get("x").getValue() + "," + tag.get("y").getValue() + "," + tag.get("z").getValue());
+        }
+        return positions;
+    }
+}
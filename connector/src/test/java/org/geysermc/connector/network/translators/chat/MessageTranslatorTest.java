@@ -25,6 +25,8 @@
 
 package org.geysermc.connector.network.translators.chat;
 
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -74,4 +76,70 @@ public class MessageTranslatorTest {
         Assert.assertEquals("Reset before message is not handled properly", "§r§eGame Selector", MessageTranslator.convertMessageLenient("§r§eGame Selector"));
         Assert.assertEquals("Unimplemented formatting chars not stripped", "Bold Underline", MessageTranslator.convertMessageLenient("§m§nBold Underline"));
     }
+
+    @Test
+    public void convertMessageCached() {
+        MessageTranslator.clearCache();
+        for (Map.Entry<String, String> entry : messages.entrySet()) {
+            MessageTranslator.convertMessage(entry.getKey(), "en_US");
+        }
+        Assert.assertEquals("Converted messages are not cached", messages.size(), MessageTranslator.getCacheSize());
+
+        // The cached conversion must be the same as the first one
+        for (Map.Entry<String, String> entry : messages.entrySet()) {
+            Assert.assertEquals("Cached message is incorrect", entry.getValue(), MessageTranslator.convertMessage(entry.getKey(), "en_US"));
+        }
+        Assert.assertEquals("Cached messages are converted again", messages.size(), MessageTranslator.getCacheSize());
+
+        MessageTranslator.clearCache();
+        Assert.assertEquals("Cache is not cleared", 0, MessageTranslator.getCacheSize());
+    }
+
+    @Test
+    public void convertComponentCached() {
+        Component component = Component.text("Welcome", NamedTextColor.YELLOW);
+        String first = MessageTranslator.convertMessage(component, "en_US");
+        Assert.assertEquals("Component is converted incorrectly", "§r§eWelcome", first);
+        Assert.assertSame("Equal component is not cached", first,
+                MessageTranslator.convertMessage(Component.text("Welcome", NamedTextColor.YELLOW), "en_US"));
+    }
+
+    @Test
+    public void messageKey() {
+        Component component = Component.text("Welcome", NamedTextColor.YELLOW);
+        MessageTranslator.MessageKey key = new MessageTranslator.MessageKey(component, "en_US");
+
+        MessageTranslator.MessageKey equalKey = new MessageTranslator.MessageKey(Component.text("Welcome", NamedTextColor.YELLOW), "en_US");
+        Assert.assertEquals("Equal components have different keys", key, equalKey);
+        Assert.assertEquals("Equal components have different hash codes", key.hashCode(), equalKey.hashCode());
+
+        Assert.assertNotEquals("Locale is not part of the key", key, new MessageTranslator.MessageKey(component, "de_DE"));
+        Assert.assertNotEquals("Message is not part of the key", key,
+                new MessageTranslator.MessageKey(Component.text("Welcome", NamedTextColor.GREEN), "en_US"));
+        Assert.assertNotEquals("Component and its JSON share a key", key,
+                new MessageTranslator.MessageKey("{\"text\":\"Welcome\",\"color\":\"yellow\"}", "en_US"));
+    }
+
+    @Test
+    public void toBedrockFormatting() {
+        // Messages without formatting codes skip the regexes
+        String plain = "Just some text";
+        Assert.assertSame("Plain message is not returned as is", plain, MessageTranslator.toBedrockFormatting(plain));
+
+        String[] legacyMessages = {"", "§", "text§", "§§a", "§m§nBold Underline", "§r§eGame Selector", "§a§lGreen bold",
+                "§x§r§rDouble reset", "§e✦ §r§d§lN", "§k||§r§b§lCubeCraft", "§A uppercase §F codes", "§r§r§r"};
+        for (String legacy : legacyMessages) {
+            Assert.assertEquals("Formatting of " + legacy + " differs from replaceAll", toBedrockFormattingByReplaceAll(legacy),
+                    MessageTranslator.toBedrockFormatting(legacy));
+        }
+    }
+
+    /**
+     * How formatting was converted before the patterns were precompiled
+     */
+    private static String toBedrockFormattingByReplaceAll(String legacy) {
+        legacy = legacy.replaceAll("\u00a7[mn]", "");
+        legacy = legacy.replaceAll("\u00a7([0-9a-f])", "\u00a7r\u00a7$1");
+        return legacy.replaceAll("\u00a7r\u00a7r", "\u00a7r");
+    }
 }
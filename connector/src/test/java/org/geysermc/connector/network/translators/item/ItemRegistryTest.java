@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.item;
+
+import com.nukkitx.protocol.bedrock.data.inventory.ItemData;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ItemRegistryTest {
+
+    /**
+     * How {@link ItemRegistry#getItem(ItemData)} found entries before it was indexed
+     */
+    static ItemEntry getItemByScan(ItemData data) {
+        boolean isBlock = data.getBlockRuntimeId() != 0;
+        boolean hasDamage = data.getDamage() != 0;
+
+        for (ItemEntry itemEntry : ItemRegistry.ITEM_ENTRIES.values()) {
+            if (itemEntry.getBedrockId() == data.getId()) {
+                if (isBlock && !hasDamage) {
+                    if (data.getBlockRuntimeId() != itemEntry.getBedrockBlockId()) {
+                        continue;
+                    }
+                } else {
+                    if (!(itemEntry.getBedrockData() == data.getDamage() ||
+                            (itemEntry.getJavaIdentifier().endsWith("potion") || itemEntry.getJavaIdentifier().equals("minecraft:arrow")))) {
+                        continue;
+                    }
+                }
+                if (!ItemRegistry.JAVA_ONLY_ITEMS.contains(itemEntry.getJavaIdentifier())) {
+                    return itemEntry;
+                }
+            }
+        }
+        return ItemEntry.AIR;
+    }
+
+    @Test
+    public void creativeItemsMatchScan() {
+        for (ItemData item : ItemRegistry.CREATIVE_ITEMS) {
+            assertSameEntry(item);
+        }
+    }
+
+    @Test
+    public void legacyCreativeItemsMatchScan() {
+        for (ItemData item : ItemRegistry.getPre1_16_220CreativeContents()) {
+            assertSameEntry(item);
+        }
+    }
+
+    @Test
+    public void itemEntriesMatchScan() {
+        for (ItemEntry itemEntry : ItemRegistry.ITEM_ENTRIES.values()) {
+            assertSameEntry(ItemData.builder()
+                    .id(itemEntry.getBedrockId())
+                    .damage(itemEntry.getBedrockData())
+                    .count(1)
+                    .build());
+            assertSameEntry(ItemData.builder()
+                    .id(itemEntry.getBedrockId())
+                    .count(1)
+                    .blockRuntimeId(itemEntry.getBedrockBlockId())
+                    .build());
+            // Potions and arrows match any damage value
+            assertSameEntry(ItemData.builder()
+                    .id(itemEntry.getBedrockId())
+                    .damage(itemEntry.getBedrockData() + 37)
+                    .count(1)
+                    .build());
+        }
+    }
+
+    private static void assertSameEntry(ItemData item) {
+        Assert.assertSame("Different entry for " + item, getItemByScan(item), ItemRegistry.getItem(item));
+    }
+}
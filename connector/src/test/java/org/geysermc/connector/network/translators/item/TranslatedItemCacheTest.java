@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.item;
+
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.StringTag;
+import com.nukkitx.protocol.bedrock.data.inventory.ItemData;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TranslatedItemCacheTest {
+    private static final ItemData ITEM = ItemData.builder().id(1).count(1).build();
+
+    private TranslatedItemCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new TranslatedItemCache(100);
+        cache.put(1, 1, displayName("Menu"), "en_us", 1, ITEM);
+    }
+
+    @Test
+    public void identicalItemHits() {
+        Assert.assertSame(ITEM, cache.get(1, 1, displayName("Menu"), "en_us", 1));
+    }
+
+    @Test
+    public void everyPartOfTheKeyCounts() {
+        Assert.assertNull("Java ID", cache.get(2, 1, displayName("Menu"), "en_us", 1));
+        Assert.assertNull("Amount", cache.get(1, 2, displayName("Menu"), "en_us", 1));
+        Assert.assertNull("NBT", cache.get(1, 1, displayName("Shop"), "en_us", 1));
+        Assert.assertNull("Locale", cache.get(1, 1, displayName("Menu"), "de_de", 1));
+        Assert.assertNull("Block state version", cache.get(1, 1, displayName("Menu"), "en_us", 2));
+    }
+
+    @Test
+    public void nbtIsCopiedOnPut() {
+        CompoundTag nbt = displayName("Sword");
+        cache.put(2, 1, nbt, "en_us", 1, ITEM);
+
+        // Java items may change after being translated; that must not change what is cached
+        nbt.put(new StringTag("Name", "Renamed"));
+        Assert.assertNull(cache.get(2, 1, nbt, "en_us", 1));
+        Assert.assertSame(ITEM, cache.get(2, 1, displayName("Sword"), "en_us", 1));
+    }
+
+    @Test
+    public void invalidateLocaleOnlyClearsThatLocale() {
+        // Used when a locale finishes loading, as cached items hold translated text
+        cache.put(1, 1, displayName("Menu"), "de_de", 1, ITEM);
+        cache.invalidateLocale("en_US");
+        Assert.assertNull(cache.get(1, 1, displayName("Menu"), "en_us", 1));
+        Assert.assertSame(ITEM, cache.get(1, 1, displayName("Menu"), "de_de", 1));
+        Assert.assertEquals(1, cache.getSize());
+    }
+
+    private static CompoundTag displayName(String name) {
+        CompoundTag nbt = new CompoundTag("");
+        nbt.put(new StringTag("Name", name));
+        return nbt;
+    }
+}
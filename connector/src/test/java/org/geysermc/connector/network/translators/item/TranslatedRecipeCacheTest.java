@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.item;
+
+import com.github.steveice10.mc.protocol.data.game.recipe.Recipe;
+import com.github.steveice10.mc.protocol.data.game.recipe.RecipeType;
+import org.geysermc.connector.network.translators.item.TranslatedRecipeCache.TranslatedRecipes;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.function.Supplier;
+
+public class TranslatedRecipeCacheTest {
+    private TranslatedRecipeCache cache;
+    private int translations;
+
+    @Before
+    public void setUp() {
+        cache = new TranslatedRecipeCache();
+        translations = 0;
+    }
+
+    @Test
+    public void identicalRecipesAreTranslatedOnce() {
+        TranslatedRecipes first = cache.get(recipes("minecraft:a", "minecraft:b"), "en_us", 1, 431, this::translate);
+        // Every session receives its own copy of the recipes
+        TranslatedRecipes second = cache.get(recipes("minecraft:a", "minecraft:b"), "en_us", 1, 431, this::translate);
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, translations);
+    }
+
+    @Test
+    public void everyPartOfTheKeyCounts() {
+        cache.get(recipes("minecraft:a", "minecraft:b"), "en_us", 1, 431, this::translate);
+
+        cache.get(recipes("minecraft:b", "minecraft:a"), "en_us", 1, 431, this::translate);
+        Assert.assertEquals("Recipe order", 2, translations);
+        cache.get(recipes("minecraft:a"), "en_us", 1, 431, this::translate);
+        Assert.assertEquals("Recipes", 3, translations);
+        cache.get(recipes("minecraft:a", "minecraft:b"), "de_de", 1, 431, this::translate);
+        Assert.assertEquals("Locale", 4, translations);
+        cache.get(recipes("minecraft:a", "minecraft:b"), "en_us", 2, 431, this::translate);
+        Assert.assertEquals("Block state version", 5, translations);
+        cache.get(recipes("minecraft:a", "minecraft:b"), "en_us", 1, 428, this::translate);
+        Assert.assertEquals("Protocol version", 6, translations);
+    }
+
+    @Test
+    public void invalidateAllTranslatesAgain() {
+        // Used when a locale is reloaded, as the recipes hold translated item names
+        cache.get(recipes("minecraft:a"), "en_us", 1, 431, this::translate);
+        cache.invalidateAll();
+        Assert.assertEquals(0, cache.getSize());
+        cache.get(recipes("minecraft:a"), "en_us", 1, 431, this::translate);
+        Assert.assertEquals(2, translations);
+    }
+
+    @Test
+    public void failedTranslationIsNotCached() {
+        Supplier<TranslatedRecipes> failing = () -> {
+            throw new IllegalStateException("Bad recipe");
+        };
+        try {
+            cache.get(recipes("minecraft:a"), "en_us", 1, 431, failing);
+            Assert.fail("Expected the translation to fail");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        cache.get(recipes("minecraft:a"), "en_us", 1, 431, this::translate);
+        Assert.assertEquals(1, translations);
+    }
+
+    private TranslatedRecipes translate() {
+        translations++;
+        return new TranslatedRecipes(null, null, null, translations);
+    }
+
+    private static Recipe[] recipes(String... identifiers) {
+        Recipe[] recipes = new Recipe[identifiers.length];
+        for (int i = 0; i < identifiers.length; i++) {
+            recipes[i] = new Recipe(RecipeType.CRAFTING_SPECIAL_BOOKCLONING, identifiers[i], null);
+        }
+        return recipes;
+    }
+}
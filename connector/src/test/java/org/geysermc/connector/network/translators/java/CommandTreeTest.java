@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.java;
+
+import com.github.steveice10.mc.protocol.data.game.command.CommandNode;
+import com.github.steveice10.mc.protocol.data.game.command.CommandParser;
+import com.github.steveice10.mc.protocol.data.game.command.CommandType;
+import com.github.steveice10.mc.protocol.data.game.command.SuggestionType;
+import org.geysermc.connector.network.translators.java.JavaDeclareCommandsTranslator.CommandTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CommandTreeTest {
+
+    /**
+     * A root with /give &lt;player&gt; and /tp redirecting to /give
+     */
+    private static CommandNode[] nodes() {
+        return new CommandNode[]{
+                new CommandNode(CommandType.ROOT, false, new int[]{1, 3}, -1, null, null, null, null),
+                new CommandNode(CommandType.LITERAL, false, new int[]{2}, -1, "give", null, null, null),
+                new CommandNode(CommandType.ARGUMENT, true, new int[0], -1, "player", CommandParser.ENTITY, null, SuggestionType.ASK_SERVER),
+                new CommandNode(CommandType.LITERAL, false, new int[0], 1, "tp", null, null, null)
+        };
+    }
+
+    @Test
+    public void identicalTreesAreEqual() {
+        CommandTree a = new CommandTree(nodes(), 0);
+        CommandTree b = new CommandTree(nodes(), 0);
+        Assert.assertEquals(a, b);
+        Assert.assertEquals(a.hashCode(), b.hashCode());
+    }
+
+    @Test
+    public void unusedPartsAreIgnored() {
+        // Suggestion types aren't translated, so trees differing only in them share a translation
+        CommandNode[] nodes = nodes();
+        nodes[2] = new CommandNode(CommandType.ARGUMENT, true, new int[0], -1, "player", CommandParser.ENTITY, null, null);
+        Assert.assertEquals(new CommandTree(nodes(), 0), new CommandTree(nodes, 0));
+    }
+
+    @Test
+    public void translatedPartsCount() {
+        CommandTree tree = new CommandTree(nodes(), 0);
+
+        CommandNode[] nodes = nodes();
+        nodes[1] = new CommandNode(CommandType.LITERAL, false, new int[]{2}, -1, "take", null, null, null);
+        Assert.assertNotEquals("Name", tree, new CommandTree(nodes, 0));
+
+        nodes = nodes();
+        nodes[0] = new CommandNode(CommandType.ROOT, false, new int[]{1}, -1, null, null, null, null);
+        Assert.assertNotEquals("Children", tree, new CommandTree(nodes, 0));
+
+        nodes = nodes();
+        nodes[3] = new CommandNode(CommandType.LITERAL, false, new int[0], -1, "tp", null, null, null);
+        Assert.assertNotEquals("Redirect", tree, new CommandTree(nodes, 0));
+
+        nodes = nodes();
+        nodes[2] = new CommandNode(CommandType.ARGUMENT, true, new int[0], -1, "player", CommandParser.GAME_PROFILE, null, SuggestionType.ASK_SERVER);
+        Assert.assertNotEquals("Parser", tree, new CommandTree(nodes, 0));
+
+        nodes = nodes();
+        nodes[2] = new CommandNode(CommandType.ARGUMENT, false, new int[0], -1, "player", CommandParser.ENTITY, null, SuggestionType.ASK_SERVER);
+        Assert.assertNotEquals("Executable", tree, new CommandTree(nodes, 0));
+
+        nodes = nodes();
+        CommandNode[] longer = new CommandNode[nodes.length + 1];
+        System.arraycopy(nodes, 0, longer, 0, nodes.length);
+        longer[nodes.length] = new CommandNode(CommandType.ROOT, false, new int[]{1}, -1, null, null, null, null);
+        Assert.assertNotEquals("Node count", tree, new CommandTree(longer, 0));
+        Assert.assertNotEquals("First node", new CommandTree(longer, 0), new CommandTree(longer, 4));
+    }
+}
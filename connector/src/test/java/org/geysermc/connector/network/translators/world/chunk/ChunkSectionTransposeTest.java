@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.BitStorage;
+import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArray;
+import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArrayVersion;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class ChunkSectionTransposeTest {
+
+    /**
+     * The conversion from YZX to XZY order before sections were transposed a word at a time
+     */
+    private static int indexYZXtoXZY(int yzx) {
+        return (yzx >> 8) | (yzx & 0x0F0) | ((yzx & 0x00F) << 8);
+    }
+
+    @Test
+    public void unpackMatchesBitStorage() {
+        Random random = new Random(0);
+        int[] unpacked = new int[BlockStorage.SIZE];
+        // Palettes use 4 to 8 bits; the global palette uses more
+        for (int bitsPerEntry = 4; bitsPerEntry <= 16; bitsPerEntry++) {
+            BitStorage storage = randomStorage(random, bitsPerEntry);
+            ChunkSectionTranspose.unpack(storage, unpacked);
+            for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
+                Assert.assertEquals("Wrong entry " + yzx + " at " + bitsPerEntry + " bits per entry",
+                        storage.get(yzx), unpacked[yzx]);
+            }
+        }
+    }
+
+    @Test
+    public void transposeMatchesPerBlockLoop() {
+        Random random = new Random(1);
+        int[] unpacked = new int[BlockStorage.SIZE];
+        for (int bitsPerEntry = 4; bitsPerEntry <= 16; bitsPerEntry++) {
+            for (int i = 0; i < 8; i++) {
+                BitStorage storage = randomStorage(random, bitsPerEntry);
+                BitArrayVersion version = BitArrayVersion.forBitsCeil(bitsPerEntry);
+
+                BitArray expected = version.createArray(BlockStorage.SIZE);
+                for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
+                    expected.set(indexYZXtoXZY(yzx), storage.get(yzx));
+                }
+
+                BitArray actual = version.createArray(BlockStorage.SIZE);
+                ChunkSectionTranspose.unpack(storage, unpacked);
+                ChunkSectionTranspose.packTransposed(unpacked, actual);
+
+                Assert.assertArrayEquals("Transposed section differs at " + bitsPerEntry + " bits per entry",
+                        expected.getWords(), actual.getWords());
+            }
+        }
+    }
+
+    @Test
+    public void packMatchesPerBlockLoopForEveryVersion() {
+        Random random = new Random(2);
+        int[] values = new int[BlockStorage.SIZE];
+        for (BitArrayVersion version : BitArrayVersion.values()) {
+            int maxValue = (1 << version.getId()) - 1;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(maxValue + 1);
+            }
+
+            BitArray expected = version.createArray(BlockStorage.SIZE);
+            for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
+                expected.set(indexYZXtoXZY(yzx), values[yzx]);
+            }
+
+            BitArray actual = version.createArray(BlockStorage.SIZE);
+            ChunkSectionTranspose.packTransposed(values, actual);
+
+            Assert.assertArrayEquals("Packed section differs for " + version, expected.getWords(), actual.getWords());
+        }
+    }
+
+    private static BitStorage randomStorage(Random random, int bitsPerEntry) {
+        BitStorage storage = new BitStorage(bitsPerEntry, BlockStorage.SIZE);
+        for (int i = 0; i < BlockStorage.SIZE; i++) {
+            storage.set(i, random.nextInt(1 << bitsPerEntry));
+        }
+        return storage;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TranslatedSectionCacheTest {
+    private static final int[] PALETTE = {0, 1, 9};
+    private static final long[] WORDS = {0x1234L, 0x5678L, -1L};
+    private static final byte[] SERIALIZED = {8, 1, 2, 3};
+
+    private TranslatedSectionCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new TranslatedSectionCache(1024 * 1024);
+        cache.put(1, 4, PALETTE, WORDS, SERIALIZED);
+    }
+
+    @Test
+    public void identicalSectionHits() {
+        Assert.assertSame(SERIALIZED, cache.get(1, 4, PALETTE.clone(), WORDS.clone()));
+    }
+
+    @Test
+    public void everyPartOfTheKeyCounts() {
+        Assert.assertNull("Block state version", cache.get(2, 4, PALETTE, WORDS));
+        Assert.assertNull("Bits per entry", cache.get(1, 5, PALETTE, WORDS));
+        Assert.assertNull("Palette", cache.get(1, 4, new int[]{0, 1, 10}, WORDS));
+        Assert.assertNull("Shorter palette", cache.get(1, 4, new int[]{0, 1}, WORDS));
+        Assert.assertNull("Block data", cache.get(1, 4, PALETTE, new long[]{0x1234L, 0x5679L, -1L}));
+    }
+
+    @Test
+    public void keyIsCopiedOnPut() {
+        int[] palette = {3, 4};
+        long[] words = {42L};
+        byte[] serialized = {1};
+        cache.put(1, 4, palette, words, serialized);
+
+        // Java sections may change after being translated; that must not change what is cached
+        palette[1] = 5;
+        words[0] = 43L;
+        Assert.assertNull(cache.get(1, 4, palette, words));
+        Assert.assertSame(serialized, cache.get(1, 4, new int[]{3, 4}, new long[]{42L}));
+    }
+
+    @Test
+    public void evictsOverMaximumSize() {
+        TranslatedSectionCache smallCache = new TranslatedSectionCache(16 * 1024);
+        for (int i = 0; i < 100; i++) {
+            smallCache.put(1, 4, new int[]{i}, new long[]{i}, new byte[1024]);
+        }
+        Assert.assertTrue("Cache holds " + smallCache.getSize() + " sections", smallCache.getSize() <= 16);
+        Assert.assertNotNull(smallCache.get(1, 4, new int[]{99}, new long[]{99}));
+    }
+}
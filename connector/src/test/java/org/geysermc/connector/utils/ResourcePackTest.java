@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ResourcePackTest {
+    @Test
+    public void waitingSenderRunsOnceAChunkIsSent() {
+        int started = 0;
+        while (ResourcePack.startSendingChunk()) {
+            started++;
+        }
+        Assert.assertTrue(started > 0);
+
+        AtomicInteger woken = new AtomicInteger();
+        ResourcePack.waitToSendChunk(woken::incrementAndGet);
+        Assert.assertEquals(0, woken.get());
+
+        ResourcePack.finishSendingChunk();
+        Assert.assertEquals(1, woken.get());
+        Assert.assertTrue(ResourcePack.startSendingChunk());
+        Assert.assertFalse(ResourcePack.startSendingChunk());
+
+        for (int i = 0; i < started; i++) {
+            ResourcePack.finishSendingChunk();
+        }
+        // Only woken up once
+        Assert.assertEquals(1, woken.get());
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2019-2021 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class XXHash64Test {
+
+    /**
+     * @return the bytes 0, 1, 2, ... wrapping at 251
+     */
+    private static byte[] sequence(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i % 251);
+        }
+        return data;
+    }
+
+    @Test
+    public void referenceVectors() {
+        Assert.assertEquals("Empty input is hashed incorrectly", 0xEF46DB3751D8E999L, XXHash64.hash(new byte[0]));
+        Assert.assertEquals(0xD24EC4F1A98C6E5BL, XXHash64.hash("a".getBytes(StandardCharsets.US_ASCII)));
+        Assert.assertEquals(0x44BC2CF5AD770999L, XXHash64.hash("abc".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void everyInputLength() {
+        // Covers the single byte, four byte and eight byte tails, and the 32-byte stripes
+        Assert.assertEquals(0xE934A84ADB052768L, XXHash64.hash(sequence(1)));
+        Assert.assertEquals(0xFFCED8604453CC1EL, XXHash64.hash(sequence(4)));
+        Assert.assertEquals(0x884A173614B81B8DL, XXHash64.hash(sequence(8)));
+        Assert.assertEquals(0xC346D2B59B4D8EE1L, XXHash64.hash(sequence(31)));
+        Assert.assertEquals(0xCBF59C5116FF32B4L, XXHash64.hash(sequence(32)));
+        Assert.assertEquals(0x6AC1E58032166597L, XXHash64.hash(sequence(100)));
+        Assert.assertEquals(0x138E26C65048CE29L, XXHash64.hash(sequence(1024)));
+    }
+
+    @Test
+    public void seedAndOffset() {
+        Assert.assertEquals(0x5AC6E60A4CB1B891L, XXHash64.hash(sequence(100), 0, 100, 0x12345678L));
+
+        byte[] padded = new byte[110];
+        System.arraycopy(sequence(100), 0, padded, 5, 100);
+        Assert.assertEquals("Hashing a region must not read outside of it",
+                XXHash64.hash(sequence(100)), XXHash64.hash(padded, 5, 100, 0L));
+    }
+}